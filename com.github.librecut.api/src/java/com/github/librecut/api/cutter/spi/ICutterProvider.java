@@ -40,5 +40,12 @@ public interface ICutterProvider {
 
 	void removeStatusListener(ICutterStatusListener listener);
 
+	/**
+	 * Enables or disables the periodic refresh of the states of available
+	 * cutters, which is only needed while they are presented to the user.
+	 * Must not block!
+	 */
+	void setStateRefreshEnabled(boolean enabled);
+
 	Collection<ICutterDescriptor> getSupportedCutters();
 }
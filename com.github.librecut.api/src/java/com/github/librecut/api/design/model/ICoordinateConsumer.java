@@ -0,0 +1,36 @@
+/**
+ * Copyright (C) 2016 Gerhard Mitzner.
+ * 
+ * This file is part of LibreCut.
+ * 
+ * LibreCut is free software: you can redistribute it and/or modify it under the
+ * terms of the GNU Lesser General Public License as published by the Free
+ * Software Foundation, either version 3 of the License, or (at your option) any
+ * later version.
+ * 
+ * LibreCut is distributed in the hope that it will be useful, but WITHOUT ANY
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR
+ * A PARTICULAR PURPOSE. See the GNU Lesser General Public License for more
+ * details.
+ * 
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with LibreCut. If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.github.librecut.api.design.model;
+
+/**
+ * Receives the coordinates of the points of a polyline without requiring an
+ * {@link IPoint} instance per point.
+ */
+public interface ICoordinateConsumer {
+
+	/**
+	 * Handles the next point of a polyline.
+	 * 
+	 * @param x
+	 *            the X coordinate.
+	 * @param y
+	 *            the Y coordinate.
+	 */
+	void accept(double x, double y);
+}
@@ -26,6 +26,55 @@ public interface IPolyline extends Iterable<IPoint> {
 
 	List<IPoint> getPointList();
 
+	/**
+	 * Returns the number of points of this polyline.
+	 * 
+	 * @return the number of points.
+	 */
+	default int getPointCount() {
+		return getPointList().size();
+	}
+
+	/**
+	 * Returns the coordinates of the points of this polyline as interleaved X
+	 * and Y values.
+	 * 
+	 * @param coordinates
+	 *            an array to be filled if it is large enough, can be
+	 *            <code>null</code>.
+	 * @return the given array if it has been large enough, a new array
+	 *         otherwise. Only the first <code>2 * getPointCount()</code>
+	 *         values are valid.
+	 */
+	default double[] getCoordinates(double[] coordinates) {
+
+		List<IPoint> pointList = getPointList();
+		double[] result = coordinates;
+		if ((result == null) || (result.length < 2 * pointList.size())) {
+			result = new double[2 * pointList.size()];
+		}
+		int i = 0;
+		for (IPoint point : pointList) {
+			result[i++] = point.getX();
+			result[i++] = point.getY();
+		}
+		return result;
+	}
+
+	/**
+	 * Passes the coordinates of all points of this polyline in order to the
+	 * given consumer.
+	 * 
+	 * @param consumer
+	 *            the consumer.
+	 */
+	default void forEachPoint(ICoordinateConsumer consumer) {
+
+		for (IPoint point : getPointList()) {
+			consumer.accept(point.getX(), point.getY());
+		}
+	}
+
 	boolean isEnabled();
 
 	void setEnabled(boolean enabled);
@@ -30,6 +30,19 @@ public interface IDesignImporter {
 
 	// TODO add comments
 
+	/**
+	 * The maximum number of bytes {@link #isSupported} reads from the
+	 * contents.
+	 */
+	int MAX_PROBE_LENGTH = 32 * 1024;
+
+	/**
+	 * Checks cheaply whether the contents look like a supported design, e.g.
+	 * by sniffing the document header. At most {@link #MAX_PROBE_LENGTH}
+	 * bytes are read, so callers can probe several importers with the same
+	 * prefix and parse the contents only once in {@link #importDesign}. A
+	 * design which passes this check may still fail to import.
+	 */
 	boolean isSupported(InputStream contents, String fileExtension, IProgressMonitor monitor)
 			throws IOException, InterruptedException;
 
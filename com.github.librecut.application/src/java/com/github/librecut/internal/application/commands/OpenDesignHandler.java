@@ -18,10 +18,7 @@
  */
 package com.github.librecut.internal.application.commands;
 
-import java.io.BufferedInputStream;
 import java.io.File;
-import java.io.FileInputStream;
-import java.io.IOException;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
@@ -32,14 +29,15 @@ import java.util.Set;
 import org.eclipse.core.commands.AbstractHandler;
 import org.eclipse.core.commands.ExecutionEvent;
 import org.eclipse.core.commands.ExecutionException;
-import org.eclipse.core.runtime.CoreException;
 import org.eclipse.core.runtime.IStatus;
-import org.eclipse.core.runtime.NullProgressMonitor;
-import org.eclipse.core.runtime.Status;
+import org.eclipse.core.runtime.jobs.Job;
+import org.eclipse.core.runtime.jobs.JobGroup;
 import org.eclipse.core.runtime.preferences.InstanceScope;
 import org.eclipse.swt.SWT;
+import org.eclipse.swt.widgets.Display;
 import org.eclipse.swt.widgets.FileDialog;
 import org.eclipse.ui.IEditorPart;
+import org.eclipse.ui.IEditorReference;
 import org.eclipse.ui.IWorkbenchPage;
 import org.eclipse.ui.PlatformUI;
 import org.eclipse.ui.handlers.HandlerUtil;
@@ -47,11 +45,10 @@ import org.osgi.service.prefs.BackingStoreException;
 
 import com.github.librecut.api.design.model.IDesign;
 import com.github.librecut.api.design.spi.IDesignConsumer;
-import com.github.librecut.api.design.spi.IDesignImporter;
-import com.github.librecut.api.design.spi.IDesignImporter.IImportResult;
 import com.github.librecut.internal.application.Activator;
 import com.github.librecut.internal.importer.DesignImporterRegistry;
 import com.github.librecut.internal.importer.IDesignImporterDescriptor;
+import com.github.librecut.internal.importer.ImportDesignJob;
 
 public class OpenDesignHandler extends AbstractHandler {
 
@@ -65,7 +62,8 @@ public class OpenDesignHandler extends AbstractHandler {
 
 		String[] fileExtensions = getSupportedFileExtensions(descriptors);
 
-		FileDialog dialog = new FileDialog(HandlerUtil.getActiveWorkbenchWindow(event).getShell(), SWT.OPEN);
+		FileDialog dialog = new FileDialog(HandlerUtil.getActiveWorkbenchWindow(event).getShell(),
+				SWT.OPEN | SWT.MULTI);
 		dialog.setFilterExtensions(fileExtensions);
 		String designLocation = loadLastDesignLocation();
 		dialog.setFilterPath(designLocation);
@@ -73,13 +71,43 @@ public class OpenDesignHandler extends AbstractHandler {
 		if (filePath != null) {
 			storeLastDesignLocation(filePath);
 
-			IDesign design = readDesignFile(filePath, descriptors);
-
-			IWorkbenchPage page = PlatformUI.getWorkbench().getActiveWorkbenchWindow().getActivePage();
-			IEditorPart editor = page.getActiveEditor();
+			final IWorkbenchPage page = PlatformUI.getWorkbench().getActiveWorkbenchWindow().getActivePage();
+			final IEditorPart editor = page.getActiveEditor();
 
 			if (editor instanceof IDesignConsumer) {
-				((IDesignConsumer) editor).consume(design);
+				Display display = HandlerUtil.getActiveWorkbenchWindow(event).getShell().getDisplay();
+				IDesignConsumer consumer = new IDesignConsumer() {
+
+					@Override
+					public void consume(IDesign design) {
+
+						// the editor may have been closed during the import
+						if (isOpen(page, editor)) {
+							((IDesignConsumer) editor).consume(design);
+						}
+					}
+				};
+
+				// files are imported concurrently, each design is added to the
+				// layout as soon as its import is done
+				String[] fileNames = dialog.getFileNames();
+				int threadCount = Math.max(1, Math.min(Runtime.getRuntime().availableProcessors(), fileNames.length));
+				JobGroup jobGroup = new JobGroup("Importing designs", threadCount, fileNames.length) {
+
+					@Override
+					protected boolean shouldCancel(IStatus lastCompletedJobResult, int numberOfFailedJobs,
+							int numberOfCanceledJobs) {
+						// a broken file must not stop the import of the others,
+						// each job reports its own failure
+						return false;
+					}
+				};
+				for (String fileName : fileNames) {
+					String path = new File(dialog.getFilterPath(), fileName).getPath();
+					Job job = new ImportDesignJob(path, descriptors, display, consumer);
+					job.setJobGroup(jobGroup);
+					job.schedule();
+				}
 			}
 		}
 		return null;
@@ -103,42 +131,14 @@ public class OpenDesignHandler extends AbstractHandler {
 		}
 	}
 
-	private IDesign readDesignFile(String filePath, Collection<IDesignImporterDescriptor> descriptors)
-			throws ExecutionException {
+	private static boolean isOpen(IWorkbenchPage page, IEditorPart editor) {
 
-		BufferedInputStream contents = null;
-		try {
-			String fileExtension = getFileExtension(filePath);
-			Collection<IDesignImporter> candidates = getImporterCandidates(fileExtension, descriptors);
-			for (IDesignImporter importer : candidates) {
-				contents = new BufferedInputStream(new FileInputStream(filePath));
-				try {
-					if (importer.isSupported(contents, fileExtension, new NullProgressMonitor())) {
-						contents.close();
-						contents = new BufferedInputStream(new FileInputStream(filePath));
-						IImportResult result = importer.importDesign(contents, fileExtension,
-								new NullProgressMonitor());
-						if (!result.getStatus().isOK()) {
-							throw new ExecutionException(result.getStatus().getMessage(),
-									result.getStatus().getException());
-						}
-						return result.getDesign();
-					}
-				} finally {
-					contents.close();
-				}
+		for (IEditorReference reference : page.getEditorReferences()) {
+			if (reference.getEditor(false) == editor) {
+				return true;
 			}
-
-			IStatus status = new Status(IStatus.ERROR, Activator.PLUGIN_ID, "File format is not supported.");
-			throw new CoreException(status);
-		} catch (IOException e) {
-			throw new ExecutionException("Cannot import design file.", e);
-		} catch (CoreException e) {
-			throw new ExecutionException("Cannot import design file.", e);
-		} catch (InterruptedException e) {
-			// cannot happen
-			return null;
 		}
+		return false;
 	}
 
 	private static String[] getSupportedFileExtensions(Collection<IDesignImporterDescriptor> descriptors) {
@@ -156,35 +156,4 @@ public class OpenDesignHandler extends AbstractHandler {
 		extensionList.add("*");
 		return extensionList.toArray(new String[extensionList.size()]);
 	}
-
-	private static String getFileExtension(String path) {
-
-		File file = new File(path);
-		String fileName = file.getName();
-		int i = fileName.lastIndexOf('.');
-		String fileExtension = fileName.substring(i + 1);
-		return fileExtension;
-	}
-
-	private static Collection<IDesignImporter> getImporterCandidates(String fileExtension,
-			Collection<IDesignImporterDescriptor> descriptors) throws CoreException {
-
-		List<IDesignImporter> candidateList = new ArrayList<IDesignImporter>(descriptors.size());
-		for (IDesignImporterDescriptor descriptor : descriptors) {
-			if (isFileExtensionSupported(fileExtension, descriptor)) {
-				candidateList.add(descriptor.create());
-			}
-		}
-		return candidateList;
-	}
-
-	private static boolean isFileExtensionSupported(String fileExtension, IDesignImporterDescriptor descriptor) {
-
-		for (String extension : descriptor.getExtensions()) {
-			if (fileExtension.equalsIgnoreCase(extension)) {
-				return true;
-			}
-		}
-		return false;
-	}
 }
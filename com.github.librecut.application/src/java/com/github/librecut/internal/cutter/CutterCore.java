@@ -23,28 +23,48 @@ import java.util.Collection;
 import java.util.Collections;
 import java.util.Comparator;
 import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.concurrent.atomic.AtomicReference;
 
 import org.eclipse.core.runtime.CoreException;
 import org.eclipse.core.runtime.ISafeRunnable;
+import org.eclipse.core.runtime.IStatus;
+import org.eclipse.core.runtime.ListenerList;
 import org.eclipse.core.runtime.SafeRunner;
+import org.eclipse.core.runtime.Status;
+import org.eclipse.swt.widgets.Display;
+import org.eclipse.ui.statushandlers.StatusManager;
 
 import com.github.librecut.api.cutter.model.ICutter;
 import com.github.librecut.api.cutter.model.ICutterDescriptor;
 import com.github.librecut.api.cutter.spi.ICutterProvider;
 import com.github.librecut.api.cutter.spi.ICutterStatusListener;
+import com.github.librecut.internal.application.Activator;
 
 public final class CutterCore implements ICutterStatusListener {
 
+	private static final int NOTIFICATION_DELAY_MILLIS = 50;
+
 	private static CutterCore instance;
 
-	private final AtomicReference<List<ICutter>> cuttersRef;
+	private final ConcurrentMap<String, ICutter> cutterMap;
+	private final AtomicLong modificationCount;
+	private final AtomicReference<Snapshot> snapshotRef;
 	private final List<ICutterProvider> providerList;
+	private final ListenerList<ICutterChangeListener> listenerList;
+	private final AtomicBoolean notificationPending;
 
 	private CutterCore() {
 
-		this.cuttersRef = new AtomicReference<>(Collections.emptyList());
+		this.cutterMap = new ConcurrentHashMap<>();
+		this.modificationCount = new AtomicLong();
+		this.snapshotRef = new AtomicReference<>(new Snapshot(0, Collections.<ICutter>emptyList()));
 		this.providerList = new ArrayList<>();
+		this.listenerList = new ListenerList<>();
+		this.notificationPending = new AtomicBoolean();
 	}
 
 	public static void startup() {
@@ -109,10 +129,61 @@ public final class CutterCore implements ICutterStatusListener {
 		}
 
 		instance.providerList.clear();
+		instance.listenerList.clear();
 
 		instance = null;
 	}
 
+	/**
+	 * Adds a listener which is notified on the display thread whenever cutters
+	 * appear, disappear or change their states. The listener receives the
+	 * current snapshot shortly after its registration. The providers refresh
+	 * the cutter states while listeners are registered.
+	 */
+	public static void addCutterChangeListener(ICutterChangeListener listener) {
+
+		CutterCore instance = CutterCore.instance;
+		if (instance == null) {
+			return;
+		}
+
+		boolean firstListener = instance.listenerList.isEmpty();
+		instance.listenerList.add(listener);
+		if (firstListener) {
+			instance.setStateRefreshEnabled(true);
+		}
+		instance.scheduleNotification();
+	}
+
+	public static void removeCutterChangeListener(ICutterChangeListener listener) {
+
+		CutterCore instance = CutterCore.instance;
+		if (instance != null) {
+			instance.listenerList.remove(listener);
+			if (instance.listenerList.isEmpty()) {
+				instance.setStateRefreshEnabled(false);
+			}
+		}
+	}
+
+	private void setStateRefreshEnabled(boolean enabled) {
+
+		for (ICutterProvider provider : providerList) {
+			SafeRunner.run(new ISafeRunnable() {
+
+				@Override
+				public void run() throws Exception {
+					provider.setStateRefreshEnabled(enabled);
+				}
+
+				@Override
+				public void handleException(Throwable e) {
+					handleProviderException(e);
+				}
+			});
+		}
+	}
+
 	private static void handleProviderRegistryConfigurationError() {
 		// TODO implement logging
 	}
@@ -129,6 +200,12 @@ public final class CutterCore implements ICutterStatusListener {
 		// TODO implement logging
 	}
 
+	private static void handleProviderException(Throwable e) {
+
+		IStatus status = new Status(IStatus.ERROR, Activator.PLUGIN_ID, "Cutter provider failed", e);
+		StatusManager.getManager().handle(status, StatusManager.LOG);
+	}
+
 	public static Collection<ICutter> getCutters() {
 
 		CutterCore instance = CutterCore.instance;
@@ -136,8 +213,7 @@ public final class CutterCore implements ICutterStatusListener {
 			return Collections.emptyList();
 		}
 
-		Collection<ICutter> cutters = instance.cuttersRef.get();
-		return cutters;
+		return instance.getSnapshot();
 	}
 
 	public static Collection<ICutterDescriptor> getSupportedCutters() {
@@ -166,50 +242,126 @@ public final class CutterCore implements ICutterStatusListener {
 		return resultList;
 	}
 
-	@Override
-	public synchronized void handleNewCutter(ICutter cutter) {
+	/**
+	 * Returns the sorted snapshot of all cutters. The snapshot is rebuilt
+	 * lazily, so a burst of changes costs a single sort.
+	 */
+	private List<ICutter> getSnapshot() {
 
-		Collection<ICutter> oldCutters = cuttersRef.get();
-		if (oldCutters == null) {
-			oldCutters = Collections.emptyList();
+		long currentModificationCount = modificationCount.get();
+		Snapshot snapshot = snapshotRef.get();
+		if (snapshot.modificationCount == currentModificationCount) {
+			return snapshot.cutters;
 		}
-		List<ICutter> newCutterList = new ArrayList<>(oldCutters);
-		newCutterList.add(cutter);
-		Collections.sort(newCutterList, new Comparator<ICutter>() {
+
+		List<ICutter> cutterList = new ArrayList<>(cutterMap.values());
+		Collections.sort(cutterList, new Comparator<ICutter>() {
 
 			@Override
 			public int compare(ICutter c1, ICutter c2) {
-				return c1.getDescriptor().getName().compareTo(c2.getDescriptor().getName());
+
+				int result = c1.getDescriptor().getName().compareTo(c2.getDescriptor().getName());
+				if (result == 0) {
+					result = c1.getId().compareTo(c2.getId());
+				}
+				return result;
 			}
 		});
-		cuttersRef.set(newCutterList);
+		List<ICutter> cutters = Collections.unmodifiableList(cutterList);
+		snapshotRef.set(new Snapshot(currentModificationCount, cutters));
+		return cutters;
 	}
 
-	@Override
-	public synchronized void handleLostCutter(String cutterId) {
+	private void handleModification() {
 
-		Collection<ICutter> oldCutters = cuttersRef.get();
-		List<ICutter> newCutterList = new ArrayList<>(oldCutters.size());
-		for (ICutter cutter : oldCutters) {
-			if (!cutter.getId().equals(cutterId)) {
-				newCutterList.add(cutter);
+		modificationCount.incrementAndGet();
+		scheduleNotification();
+	}
+
+	/**
+	 * Queues a single notification of all listeners on the display thread.
+	 * Changes arriving while a notification is pending are delivered with it,
+	 * since the listeners always receive the latest snapshot.
+	 */
+	private void scheduleNotification() {
+
+		if (listenerList.isEmpty() || !notificationPending.compareAndSet(false, true)) {
+			return;
+		}
+
+		final Display display = Display.getDefault();
+		final Runnable notifier = new Runnable() {
+
+			@Override
+			public void run() {
+
+				notificationPending.set(false);
+				Collection<ICutter> cutters = getSnapshot();
+				for (ICutterChangeListener listener : listenerList) {
+					notifyCuttersChanged(listener, cutters);
+				}
+			}
+		};
+		display.asyncExec(new Runnable() {
+
+			@Override
+			public void run() {
+
+				if (!display.isDisposed()) {
+					display.timerExec(NOTIFICATION_DELAY_MILLIS, notifier);
+				}
+			}
+		});
+	}
+
+	private static void notifyCuttersChanged(final ICutterChangeListener listener, final Collection<ICutter> cutters) {
+
+		SafeRunner.run(new ISafeRunnable() {
+
+			@Override
+			public void run() throws Exception {
+				listener.handleCuttersChanged(cutters);
 			}
+
+			@Override
+			public void handleException(Throwable exception) {
+				// nothing to do
+			}
+		});
+	}
+
+	@Override
+	public void handleNewCutter(ICutter cutter) {
+
+		cutterMap.put(cutter.getId(), cutter);
+		handleModification();
+	}
+
+	@Override
+	public void handleLostCutter(String cutterId) {
+
+		if (cutterMap.remove(cutterId) != null) {
+			handleModification();
 		}
-		cuttersRef.set(newCutterList);
 	}
 
 	@Override
-	public synchronized void handleStatusChange(ICutter cutter) {
-
-		Collection<ICutter> oldCutters = cuttersRef.get();
-		List<ICutter> newCutterList = new ArrayList<>(oldCutters.size());
-		for (ICutter oldCutter : oldCutters) {
-			if (cutter.getId().equals(oldCutter.getId())) {
-				newCutterList.add(cutter);
-			} else {
-				newCutterList.add(oldCutter);
-			}
+	public void handleStatusChange(ICutter cutter) {
+
+		if (cutterMap.replace(cutter.getId(), cutter) != null) {
+			handleModification();
+		}
+	}
+
+	private static class Snapshot {
+
+		private final long modificationCount;
+		private final List<ICutter> cutters;
+
+		public Snapshot(long modificationCount, List<ICutter> cutters) {
+
+			this.modificationCount = modificationCount;
+			this.cutters = cutters;
 		}
-		cuttersRef.set(newCutterList);
 	}
 }
@@ -0,0 +1,37 @@
+/**
+ * Copyright (C) 2016 Gerhard Mitzner.
+ * 
+ * This file is part of LibreCut.
+ * 
+ * LibreCut is free software: you can redistribute it and/or modify it under the
+ * terms of the GNU Lesser General Public License as published by the Free
+ * Software Foundation, either version 3 of the License, or (at your option) any
+ * later version.
+ * 
+ * LibreCut is distributed in the hope that it will be useful, but WITHOUT ANY
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR
+ * A PARTICULAR PURPOSE. See the GNU Lesser General Public License for more
+ * details.
+ * 
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with LibreCut. If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.github.librecut.internal.cutter;
+
+import java.util.Collection;
+
+import com.github.librecut.api.cutter.model.ICutter;
+
+/**
+ * Listener for changes of the set of available cutters or of their states.
+ * Listeners are notified on the display thread; bursts of changes are
+ * coalesced into a single notification.
+ */
+public interface ICutterChangeListener {
+
+	/**
+	 * @param cutters
+	 *            the immutable snapshot of all available cutters.
+	 */
+	void handleCuttersChanged(Collection<ICutter> cutters);
+}
@@ -21,7 +21,6 @@ package com.github.librecut.internal.cutter.wizards;
 import java.lang.reflect.InvocationTargetException;
 import java.util.ArrayList;
 import java.util.Collection;
-import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 
@@ -45,6 +44,11 @@ import com.github.librecut.api.design.model.IPoint;
 import com.github.librecut.api.design.model.IPolyline;
 import com.github.librecut.api.media.model.IMedia;
 import com.github.librecut.api.media.model.IMediaSize;
+import com.github.librecut.common.cutter.path.IPathOptimizer;
+import com.github.librecut.common.cutter.path.InsideOutPathOptimizer;
+import com.github.librecut.common.cutter.path.PathOptimizationResult;
+import com.github.librecut.common.cutter.path.PolylineSimplifier;
+import com.github.librecut.common.design.model.PackedPolyline;
 import com.github.librecut.common.design.model.Point;
 import com.github.librecut.internal.application.Activator;
 import com.github.librecut.resource.model.IDesignEntity;
@@ -54,14 +58,24 @@ public class CutWizard extends Wizard {
 
 	private static final int STATUS_CODE_PATTERN_VALIDATION_FAILED = -1;
 
+	private static final long PATH_OPTIMIZATION_TIME_BUDGET_MILLIS = 2000;
+
+	/**
+	 * Maximum deviation of simplified polylines, half a step of a 508 dpi
+	 * cutter.
+	 */
+	private static final double SIMPLIFICATION_TOLERANCE_INCHES = 0.001;
+
 	private SelectCutterWizardPage selectCutterPage;
 	private CuttingParameterWizardPage cuttingParameterPage;
 	private final ICutter[] selectedCutters;
+	private final IPathOptimizer pathOptimizer;
 
 	public CutWizard() {
 
 		super();
 		this.selectedCutters = new ICutter[1];
+		this.pathOptimizer = new InsideOutPathOptimizer(PATH_OPTIMIZATION_TIME_BUDGET_MILLIS);
 		setNeedsProgressMonitor(true);
 	}
 
@@ -105,7 +119,14 @@ public class CutWizard extends Wizard {
 
 					SubMonitor subMonitor = SubMonitor.convert(monitor, "Cutting", 100);
 					try {
-						cutter.cut(pattern, parameterMap, subMonitor.newChild(100));
+						IPattern optimizedPattern = optimizePattern(pattern, subMonitor.newChild(10));
+						IStatus cuttingStatus = cutter.cut(optimizedPattern, parameterMap, subMonitor.newChild(90));
+						if (!cuttingStatus.matches(IStatus.CANCEL)) {
+							// a successful cut reports its throughput statistics
+							StatusManager.getManager().handle(cuttingStatus,
+									cuttingStatus.matches(IStatus.ERROR) ? StatusManager.LOG | StatusManager.SHOW
+											: StatusManager.LOG);
+						}
 					} finally {
 						monitor.done();
 					}
@@ -146,10 +167,35 @@ public class CutWizard extends Wizard {
 		// TODO take care of loading direction and cutter specific coordinate
 		// system
 
-		final Collection<IPolyline> polylineList = createCutterPolylines(layout, dpiX, dpiY);
+		PolylineSimplifier simplifier = PolylineSimplifier.forResolution(SIMPLIFICATION_TOLERANCE_INCHES, dpiX);
+		final Collection<IPolyline> polylineList = createCutterPolylines(layout, dpiX, dpiY, simplifier);
+
+		IStatus status = new Status(IStatus.INFO, Activator.PLUGIN_ID, simplifier.toString());
+		StatusManager.getManager().handle(status, StatusManager.LOG);
 
 		// TODO check borders and loading direction
 
+		return createPattern(polylineList, dpiX, dpiY);
+	}
+
+	/**
+	 * Reorders the polylines of the pattern, so nested contours are cut from
+	 * the inside out and the pen-up travel of the cutter is minimized.
+	 */
+	private IPattern optimizePattern(IPattern pattern, IProgressMonitor monitor) throws InterruptedException {
+
+		List<IPolyline> polylineList = new ArrayList<IPolyline>(pattern.getPolylines(true));
+		PathOptimizationResult result = pathOptimizer.optimize(polylineList, monitor);
+
+		IStatus status = new Status(IStatus.INFO, Activator.PLUGIN_ID, result.toString());
+		StatusManager.getManager().handle(status, StatusManager.LOG);
+
+		return createPattern(result.getPolylines(), pattern.getDpiX(), pattern.getDpiY());
+	}
+
+	private static IPattern createPattern(final Collection<IPolyline> polylineList, final double dpiX,
+			final double dpiY) {
+
 		return new IPattern() {
 
 			@Override
@@ -181,7 +227,8 @@ public class CutWizard extends Wizard {
 		};
 	}
 
-	private static Collection<IPolyline> createCutterPolylines(ILayout layout, double dpiX, double dpiY) {
+	private static Collection<IPolyline> createCutterPolylines(ILayout layout, double dpiX, double dpiY,
+			PolylineSimplifier simplifier) {
 
 		boolean mirrored = layout.isMirrored();
 		List<IPolyline> transformedPolylineList = new ArrayList<IPolyline>();
@@ -194,7 +241,7 @@ public class CutWizard extends Wizard {
 			Collection<IPolyline> polylines = pattern.getPolylines(true);
 			for (IPolyline polyline : polylines) {
 				// TODO apply offset and coordinate transformation
-				transformedPolylineList.add(transformPolyline(polyline, offset));
+				transformedPolylineList.add(simplifier.simplify(transformPolyline(polyline, offset)));
 			}
 		}
 		return transformedPolylineList;
@@ -202,21 +249,13 @@ public class CutWizard extends Wizard {
 
 	private static IPolyline transformPolyline(IPolyline polyline, IPoint offset) {
 
-		final List<IPoint> transformedPointList = new ArrayList<IPoint>(polyline.getPointList().size());
-		for (IPoint point : polyline.getPointList()) {
-			transformedPointList.add(new Point(point.getX() + offset.getX(), point.getY() + offset.getY()));
+		int pointCount = polyline.getPointCount();
+		double[] coordinates = polyline.getCoordinates(null);
+		for (int i = 0; i < 2 * pointCount; i += 2) {
+			coordinates[i] += offset.getX();
+			coordinates[i + 1] += offset.getY();
 		}
-		return new IPolyline() {
-
-			@Override
-			public List<IPoint> getPointList() {
-				return transformedPointList;
-			}
-
-			@Override
-			public Iterator<IPoint> iterator() {
-				return transformedPointList.iterator();
-			}
+		return new PackedPolyline(coordinates, 0, pointCount) {
 
 			@Override
 			public void setEnabled(boolean enabled) {
@@ -239,9 +278,14 @@ public class CutWizard extends Wizard {
 		double maxX = mediaSize.getWidth() * descriptor.getDpiX();
 		double maxY = mediaSize.getHeight() * descriptor.getDpiY();
 
+		double[] coordinates = null;
 		for (IPolyline polyline : polylines) {
-			for (IPoint point : polyline.getPointList()) {
-				if ((point.getX() < 0) || (point.getX() >= maxX) || (point.getY() < 0) || (point.getY() >= maxY)) {
+			coordinates = polyline.getCoordinates(coordinates);
+			int length = 2 * polyline.getPointCount();
+			for (int i = 0; i < length; i += 2) {
+				double x = coordinates[i];
+				double y = coordinates[i + 1];
+				if ((x < 0) || (x >= maxX) || (y < 0) || (y >= maxY)) {
 					return false;
 				}
 			}
@@ -18,16 +18,13 @@
  */
 package com.github.librecut.internal.cutter.wizards;
 
+import java.util.ArrayList;
 import java.util.Collection;
-import java.util.Map;
-import java.util.concurrent.ConcurrentHashMap;
+import java.util.List;
 
-import org.eclipse.core.runtime.IProgressMonitor;
-import org.eclipse.core.runtime.IStatus;
-import org.eclipse.core.runtime.Status;
-import org.eclipse.core.runtime.jobs.Job;
 import org.eclipse.jface.viewers.ArrayContentProvider;
 import org.eclipse.jface.viewers.ColumnLabelProvider;
+import org.eclipse.jface.viewers.IElementComparer;
 import org.eclipse.jface.viewers.ISelection;
 import org.eclipse.jface.viewers.ISelectionChangedListener;
 import org.eclipse.jface.viewers.IStructuredSelection;
@@ -39,36 +36,28 @@ import org.eclipse.swt.SWT;
 import org.eclipse.swt.layout.GridData;
 import org.eclipse.swt.layout.GridLayout;
 import org.eclipse.swt.widgets.Composite;
-import org.eclipse.swt.widgets.Display;
 
 import com.github.librecut.api.cutter.model.ICutter;
 import com.github.librecut.api.cutter.model.ICutter.DeviceState;
 import com.github.librecut.internal.cutter.CutterCore;
+import com.github.librecut.internal.cutter.ICutterChangeListener;
 
 public class SelectCutterWizardPage extends WizardPage {
 
-	protected static final long CUTTER_UPDATE_SLEEPING_TIME_MILLIS = 5000;
-
 	private final ICutter[] selectedCutters;
 
-	private final ICutter[] cutters;
+	private final List<ICutter> cutterList;
 
 	private TableViewer tableViewer;
 	private ISelectionChangedListener listener;
-
-	private final Map<ICutter, DeviceState> stateMap;
-
-	private Job cutterUpdateJob;
+	private ICutterChangeListener cutterChangeListener;
 
 	public SelectCutterWizardPage(ICutter[] selectedCutters) {
 
 		super("CutterSelection", "Cutter selection", null);
 		this.selectedCutters = selectedCutters;
 
-		Collection<ICutter> cutters = CutterCore.getCutters();
-		this.cutters = cutters.toArray(new ICutter[cutters.size()]);
-
-		this.stateMap = new ConcurrentHashMap<ICutter, DeviceState>(cutters.size());
+		this.cutterList = new ArrayList<>(CutterCore.getCutters());
 
 		setDescription("Please select the desired cutter.\nImportant: The cutter status must be 'Ready'.");
 	}
@@ -87,6 +76,28 @@ public class SelectCutterWizardPage extends WizardPage {
 		gridData.heightHint = 250;
 		tableViewer.getTable().setLayoutData(gridData);
 		tableViewer.setContentProvider(ArrayContentProvider.getInstance());
+		// compare cutters by id, so the selection survives refreshes even if a
+		// provider reports a reattached device with a new cutter instance
+		tableViewer.setComparer(new IElementComparer() {
+
+			@Override
+			public boolean equals(Object a, Object b) {
+
+				if ((a instanceof ICutter) && (b instanceof ICutter)) {
+					return ((ICutter) a).getId().equals(((ICutter) b).getId());
+				}
+				return a.equals(b);
+			}
+
+			@Override
+			public int hashCode(Object element) {
+
+				if (element instanceof ICutter) {
+					return ((ICutter) element).getId().hashCode();
+				}
+				return element.hashCode();
+			}
+		});
 
 		TableViewerColumn columnName = new TableViewerColumn(tableViewer, SWT.LEFT);
 		columnName.getColumn().setText("Cutter");
@@ -112,7 +123,7 @@ public class SelectCutterWizardPage extends WizardPage {
 			public String getText(Object obj) {
 
 				if (obj instanceof ICutter) {
-					DeviceState state = stateMap.get(obj);
+					DeviceState state = ((ICutter) obj).getDeviceState();
 					if (state == null) {
 						return "Unknown";
 					}
@@ -126,59 +137,53 @@ public class SelectCutterWizardPage extends WizardPage {
 
 			@Override
 			public void selectionChanged(SelectionChangedEvent event) {
-
-				selectedCutters[0] = null;
-				ISelection selection = event.getSelection();
-				if (selection instanceof IStructuredSelection) {
-					Object obj = ((IStructuredSelection) selection).getFirstElement();
-					if (obj instanceof ICutter) {
-						DeviceState state = stateMap.get(obj);
-						if (state == DeviceState.Ready) {
-							selectedCutters[0] = (ICutter) obj;
-						}
-					}
-				}
-				setPageComplete(selectedCutters[0] != null);
+				updateSelectedCutter(event.getSelection());
 			}
 		};
 		tableViewer.addSelectionChangedListener(listener);
 
-		tableViewer.setInput(cutters);
+		tableViewer.setInput(cutterList);
 
 		setControl(container);
 
 		setPageComplete(false);
 
-		cutterUpdateJob = new Job("Updating cutter status...") {
+		cutterChangeListener = new ICutterChangeListener() {
 
 			@Override
-			protected IStatus run(IProgressMonitor monitor) {
+			public void handleCuttersChanged(Collection<ICutter> cutters) {
 
-				try {
-					for (ICutter cutter : cutters) {
-						DeviceState state = cutter.getDeviceState();
-						stateMap.put(cutter, state);
-					}
-					Display.getDefault().asyncExec(new Runnable() {
-
-						@Override
-						public void run() {
-							tableViewer.refresh();
-						}
-					});
-					return Status.OK_STATUS;
-				} finally {
-					schedule(CUTTER_UPDATE_SLEEPING_TIME_MILLIS);
+				if (tableViewer.getControl().isDisposed()) {
+					return;
 				}
+				cutterList.clear();
+				cutterList.addAll(cutters);
+				tableViewer.refresh();
+				updateSelectedCutter(tableViewer.getSelection());
 			}
 		};
-		cutterUpdateJob.schedule();
+		CutterCore.addCutterChangeListener(cutterChangeListener);
+	}
+
+	private void updateSelectedCutter(ISelection selection) {
+
+		selectedCutters[0] = null;
+		if (selection instanceof IStructuredSelection) {
+			Object obj = ((IStructuredSelection) selection).getFirstElement();
+			if (obj instanceof ICutter) {
+				DeviceState state = ((ICutter) obj).getDeviceState();
+				if (state == DeviceState.Ready) {
+					selectedCutters[0] = (ICutter) obj;
+				}
+			}
+		}
+		setPageComplete(selectedCutters[0] != null);
 	}
 
 	@Override
 	public void dispose() {
 
-		cutterUpdateJob.cancel();
+		CutterCore.removeCutterChangeListener(cutterChangeListener);
 		tableViewer.removeSelectionChangedListener(listener);
 
 		super.dispose();
@@ -0,0 +1,186 @@
+/**
+ * Copyright (C) 2016 Gerhard Mitzner.
+ * 
+ * This file is part of LibreCut.
+ * 
+ * LibreCut is free software: you can redistribute it and/or modify it under the
+ * terms of the GNU Lesser General Public License as published by the Free
+ * Software Foundation, either version 3 of the License, or (at your option) any
+ * later version.
+ * 
+ * LibreCut is distributed in the hope that it will be useful, but WITHOUT ANY
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR
+ * A PARTICULAR PURPOSE. See the GNU Lesser General Public License for more
+ * details.
+ * 
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with LibreCut. If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.github.librecut.internal.importer;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.SequenceInputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+
+import org.eclipse.core.runtime.CoreException;
+import org.eclipse.core.runtime.IProgressMonitor;
+import org.eclipse.core.runtime.IStatus;
+import org.eclipse.core.runtime.MultiStatus;
+import org.eclipse.core.runtime.Status;
+import org.eclipse.core.runtime.SubMonitor;
+import org.eclipse.core.runtime.jobs.Job;
+import org.eclipse.swt.widgets.Display;
+
+import com.github.librecut.api.design.model.IDesign;
+import com.github.librecut.api.design.spi.IDesignConsumer;
+import com.github.librecut.api.design.spi.IDesignImporter;
+import com.github.librecut.api.design.spi.IDesignImporter.IImportResult;
+import com.github.librecut.internal.application.Activator;
+
+/**
+ * Imports a design file in the background and hands the design to a consumer
+ * on the display thread. Errors are reported through the job result, which
+ * names the file.
+ */
+public class ImportDesignJob extends Job {
+
+	private final String filePath;
+	private final Collection<IDesignImporterDescriptor> descriptors;
+	private final Display display;
+	private final IDesignConsumer consumer;
+
+	/**
+	 * @param filePath
+	 *            the path of the design file.
+	 * @param descriptors
+	 *            the descriptors of all available importers.
+	 * @param display
+	 *            the display on whose thread the consumer is called.
+	 * @param consumer
+	 *            the consumer of the imported design.
+	 */
+	public ImportDesignJob(String filePath, Collection<IDesignImporterDescriptor> descriptors, Display display,
+			IDesignConsumer consumer) {
+
+		super("Importing " + new File(filePath).getName());
+		this.filePath = filePath;
+		this.descriptors = descriptors;
+		this.display = display;
+		this.consumer = consumer;
+		setUser(true);
+	}
+
+	@Override
+	protected IStatus run(IProgressMonitor monitor) {
+
+		try {
+			final IDesign design = readDesignFile(monitor);
+			if (!display.isDisposed()) {
+				display.asyncExec(new Runnable() {
+
+					@Override
+					public void run() {
+						consumer.consume(design);
+					}
+				});
+			}
+			return Status.OK_STATUS;
+		} catch (IOException e) {
+			return new Status(IStatus.ERROR, Activator.PLUGIN_ID, getErrorMessage(), e);
+		} catch (CoreException e) {
+			return new MultiStatus(Activator.PLUGIN_ID, e.getStatus().getCode(), new IStatus[] { e.getStatus() },
+					getErrorMessage(), null);
+		} catch (InterruptedException e) {
+			return Status.CANCEL_STATUS;
+		} finally {
+			monitor.done();
+		}
+	}
+
+	private IDesign readDesignFile(IProgressMonitor monitor) throws IOException, CoreException, InterruptedException {
+
+		String fileExtension = getFileExtension(filePath);
+		Collection<IDesignImporter> candidates = getImporterCandidates(fileExtension, descriptors);
+		SubMonitor subMonitor = SubMonitor.convert(monitor, getName(), 10 * candidates.size() + 100);
+
+		BufferedInputStream contents = new BufferedInputStream(new FileInputStream(filePath));
+		try {
+			// all importers probe the same prefix, so the file is read once
+			byte[] prefix = readPrefix(contents, IDesignImporter.MAX_PROBE_LENGTH);
+			for (IDesignImporter importer : candidates) {
+				if (importer.isSupported(new ByteArrayInputStream(prefix), fileExtension, subMonitor.newChild(10))) {
+					subMonitor.setWorkRemaining(100);
+					InputStream designContents = new SequenceInputStream(new ByteArrayInputStream(prefix), contents);
+					IImportResult result = importer.importDesign(designContents, fileExtension,
+							subMonitor.newChild(100));
+					if (!result.getStatus().isOK()) {
+						throw new CoreException(result.getStatus());
+					}
+					return result.getDesign();
+				}
+			}
+		} finally {
+			contents.close();
+		}
+
+		IStatus status = new Status(IStatus.ERROR, Activator.PLUGIN_ID, "File format is not supported.");
+		throw new CoreException(status);
+	}
+
+	private String getErrorMessage() {
+		return "Cannot import design file " + new File(filePath).getName() + ".";
+	}
+
+	private static byte[] readPrefix(InputStream contents, int length) throws IOException {
+
+		byte[] buffer = new byte[length];
+		int offset = 0;
+		while (offset < length) {
+			int count = contents.read(buffer, offset, length - offset);
+			if (count == -1) {
+				return Arrays.copyOf(buffer, offset);
+			}
+			offset += count;
+		}
+		return buffer;
+	}
+
+	private static String getFileExtension(String path) {
+
+		File file = new File(path);
+		String fileName = file.getName();
+		int i = fileName.lastIndexOf('.');
+		String fileExtension = fileName.substring(i + 1);
+		return fileExtension;
+	}
+
+	private static Collection<IDesignImporter> getImporterCandidates(String fileExtension,
+			Collection<IDesignImporterDescriptor> descriptors) throws CoreException {
+
+		List<IDesignImporter> candidateList = new ArrayList<IDesignImporter>(descriptors.size());
+		for (IDesignImporterDescriptor descriptor : descriptors) {
+			if (isFileExtensionSupported(fileExtension, descriptor)) {
+				candidateList.add(descriptor.create());
+			}
+		}
+		return candidateList;
+	}
+
+	private static boolean isFileExtensionSupported(String fileExtension, IDesignImporterDescriptor descriptor) {
+
+		for (String extension : descriptor.getExtensions()) {
+			if (fileExtension.equalsIgnoreCase(extension)) {
+				return true;
+			}
+		}
+		return false;
+	}
+}
@@ -18,7 +18,10 @@
  */
 package com.github.librecut.internal.layouteditor;
 
+import java.util.Collections;
 import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
 import java.util.function.Supplier;
 
 import org.eclipse.swt.SWT;
@@ -42,6 +45,7 @@ public class LayoutCanvas extends Canvas {
 	private static final int SIZE_MEDIA_SHADOW = 3;
 
 	private final Supplier<LayoutModel> layoutSupplier;
+	private final LayoutPatternJob patternJob;
 
 	private LoadingDirection defaultLoadingDirection;
 
@@ -50,6 +54,8 @@ public class LayoutCanvas extends Canvas {
 
 	private volatile RenderingParameters renderingParameters;
 
+	private Map<String, LayoutPattern> paintedPatternMap;
+
 	public LayoutCanvas(Composite parent, int style, final IDesignEntityChangeListener designEntityChangeListener,
 			final Supplier<LayoutModel> layoutSupplier, IMediaRenderer mediaRenderer) {
 
@@ -60,8 +66,12 @@ public class LayoutCanvas extends Canvas {
 		this.selectedEntity = null;
 		this.selectedEntityId = null;
 
+		this.patternJob = new LayoutPatternJob(this, layoutSupplier);
+		this.paintedPatternMap = Collections.emptyMap();
+		this.addDisposeListener(e -> patternJob.cancel());
+
 		this.addPaintListener(new LayoutCanvasPaintListener(layoutSupplier, () -> selectedEntityId,
-				() -> renderingParameters, mediaRenderer));
+				() -> renderingParameters, mediaRenderer, this));
 
 		this.addMouseListener(new LayoutCanvasMouseListener(this, layoutSupplier, () -> renderingParameters));
 
@@ -95,19 +105,108 @@ public class LayoutCanvas extends Canvas {
 
 	synchronized void setSelectedPatternId(String id) {
 
+		String previousId = selectedEntityId;
 		LayoutModel layout = layoutSupplier.get();
 		List<IDesignEntity> entityList = layout.getDesignEntityList();
 		for (IDesignEntity entity : entityList) {
 			if (entity.getId().equals(id)) {
 				this.selectedEntity = entity;
 				this.selectedEntityId = id;
-				redraw();
+				redrawPattern(previousId);
+				redrawPattern(id);
 				return;
 			}
 		}
 
 		this.selectedEntity = null;
 		this.selectedEntityId = null;
+		redrawPattern(previousId);
+	}
+
+	/**
+	 * Returns the up to date patterns, or a preview of them while they are
+	 * created in the background.
+	 */
+	Map<String, LayoutPattern> getPatternMap(RenderingParameters renderingParameters, Rectangle drawableArea) {
+
+		LayoutModel layout = layoutSupplier.get();
+		Map<String, LayoutPattern> patternMap = layout.getCachedPatternMap(renderingParameters, drawableArea);
+		if (patternMap == null) {
+			patternJob.request(renderingParameters, drawableArea);
+			patternMap = layout.getPreviewPatternMap(renderingParameters, drawableArea);
+		}
+		return patternMap;
+	}
+
+	/**
+	 * Records the patterns being painted. Patterns which changed outside of
+	 * the painted area since the last paint are redrawn.
+	 */
+	void setPaintedPatternMap(Map<String, LayoutPattern> patternMap, Rectangle clipping) {
+
+		Rectangle damage = getDamage(paintedPatternMap, patternMap);
+		paintedPatternMap = patternMap;
+		if ((damage != null) && !clipping.union(damage).equals(clipping)) {
+			redraw(damage.x, damage.y, damage.width, damage.height, false);
+		}
+	}
+
+	/**
+	 * Redraws the areas of the patterns which changed since they have been
+	 * painted. Must be called after design entities have been changed.
+	 */
+	public void redrawPatterns() {
+
+		Map<String, LayoutPattern> patternMap = getPatternMap(renderingParameters, getClientArea());
+		Rectangle damage = getDamage(paintedPatternMap, patternMap);
+		if (damage != null) {
+			redraw(damage.x, damage.y, damage.width, damage.height, false);
+		}
+	}
+
+	private void redrawPattern(String id) {
+
+		LayoutPattern pattern = (id != null) ? paintedPatternMap.get(id) : null;
+		if (pattern != null) {
+			Rectangle bounds = pattern.getBounds();
+			redraw(bounds.x, bounds.y, bounds.width, bounds.height, false);
+		}
+	}
+
+	/**
+	 * Returns the union of the old and the new bounds of all patterns which
+	 * have been added, removed or replaced, or <code>null</code> if there are
+	 * none. Unchanged patterns are identical objects in both maps.
+	 */
+	private static Rectangle getDamage(Map<String, LayoutPattern> previousPatternMap,
+			Map<String, LayoutPattern> patternMap) {
+
+		Rectangle damage = null;
+		for (Entry<String, LayoutPattern> entry : previousPatternMap.entrySet()) {
+			LayoutPattern pattern = patternMap.get(entry.getKey());
+			if (pattern != entry.getValue()) {
+				damage = addBounds(damage, entry.getValue());
+				damage = addBounds(damage, pattern);
+			}
+		}
+		for (Entry<String, LayoutPattern> entry : patternMap.entrySet()) {
+			if (!previousPatternMap.containsKey(entry.getKey())) {
+				damage = addBounds(damage, entry.getValue());
+			}
+		}
+		return damage;
+	}
+
+	private static Rectangle addBounds(Rectangle damage, LayoutPattern pattern) {
+
+		if (pattern == null) {
+			return damage;
+		}
+		Rectangle bounds = pattern.getBounds();
+		if (bounds.isEmpty()) {
+			return damage;
+		}
+		return (damage != null) ? damage.union(bounds) : bounds;
 	}
 
 	private void updateRenderingParameters() {
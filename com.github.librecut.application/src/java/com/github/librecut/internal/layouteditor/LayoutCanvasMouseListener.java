@@ -65,9 +65,10 @@ public class LayoutCanvasMouseListener implements MouseListener, MouseMoveListen
 			Rectangle clientArea = canvas.getClientArea();
 			x0 = e.x - clientArea.x;
 			y0 = e.y - clientArea.y;
-			LayoutModel layout = layoutModelSupplier.get();
 			RenderingParameters viewingParameters = viewingParametersSupplier.get();
-			Map<String, LayoutPattern> patternMap = layout.getPatternMap(viewingParameters, clientArea);
+			// hit-test against what is painted instead of creating the patterns
+			// on the UI thread
+			Map<String, LayoutPattern> patternMap = canvas.getPatternMap(viewingParameters, clientArea);
 			String id = getSelectedPatternId(patternMap, x0, y0);
 			canvas.setSelectedPatternId(id);
 
@@ -79,10 +80,8 @@ public class LayoutCanvasMouseListener implements MouseListener, MouseMoveListen
 
 		for (Entry<String, LayoutPattern> entry : patternMap.entrySet()) {
 			LayoutPattern pattern = entry.getValue();
-			for (LayoutPattern.Line line : pattern.getLines()) {
-				if (line.contains(x, y, EPSILON)) {
-					return entry.getKey();
-				}
+			if (pattern.contains(x, y, EPSILON)) {
+				return entry.getKey();
 			}
 		}
 		return null;
@@ -148,7 +147,7 @@ public class LayoutCanvasMouseListener implements MouseListener, MouseMoveListen
 				designEntity.setScale(newScale);
 			}
 			layoutModelSupplier.get().notifyDesignEntitiesChanged();
-			canvas.redraw();
+			canvas.redrawPatterns();
 		}
 
 		x0 = x;
@@ -44,20 +44,24 @@ public class LayoutCanvasPaintListener implements PaintListener {
 	private final Supplier<String> selectionIdSupplier;
 	private final Supplier<RenderingParameters> renderingParametersSupplier;
 	private final IMediaRenderer mediaRenderer;
+	private final LayoutCanvas canvas;
 
 	public LayoutCanvasPaintListener(Supplier<LayoutModel> layoutModelSupplier, Supplier<String> selectionIdSupplier,
-			Supplier<RenderingParameters> renderingParametersSupplier, IMediaRenderer mediaRenderer) {
+			Supplier<RenderingParameters> renderingParametersSupplier, IMediaRenderer mediaRenderer,
+			LayoutCanvas canvas) {
 
 		this.layoutModelSupplier = layoutModelSupplier;
 		this.selectionIdSupplier = selectionIdSupplier;
 		this.renderingParametersSupplier = renderingParametersSupplier;
 		this.mediaRenderer = mediaRenderer;
+		this.canvas = canvas;
 	}
 
 	@Override
 	public void paintControl(PaintEvent e) {
 
 		Rectangle drawingArea = ((Canvas) e.widget).getClientArea();
+		Rectangle clipping = new Rectangle(e.x, e.y, e.width, e.height);
 
 		Color whiteColor = Display.getCurrent().getSystemColor(SWT.COLOR_WHITE);
 		e.gc.setBackground(whiteColor);
@@ -70,8 +74,9 @@ public class LayoutCanvasPaintListener implements PaintListener {
 
 		List<IDesignEntity> designEntityList = layout.getDesignEntityList();
 		Set<String> enabledPatternIdSet = getEnabledPatternIdSet(designEntityList);
-		Map<String, LayoutPattern> patternMap = layout.getPatternMap(renderingParameters, drawingArea);
-		drawPatterns(e.gc, patternMap, selectionIdSupplier.get(), enabledPatternIdSet);
+		Map<String, LayoutPattern> patternMap = canvas.getPatternMap(renderingParameters, drawingArea);
+		canvas.setPaintedPatternMap(patternMap, clipping);
+		drawPatterns(e.gc, patternMap, selectionIdSupplier.get(), enabledPatternIdSet, clipping);
 	}
 
 	private Set<String> getEnabledPatternIdSet(List<IDesignEntity> designEntityList) {
@@ -86,7 +91,7 @@ public class LayoutCanvasPaintListener implements PaintListener {
 	}
 
 	private void drawPatterns(GC gc, Map<String, LayoutPattern> patternMap, String selectedPatternId,
-			Set<String> enabledPatternIdSet) {
+			Set<String> enabledPatternIdSet, Rectangle clipping) {
 
 		Color enabledColor = Display.getCurrent().getSystemColor(SWT.COLOR_BLACK);
 		Color disabledColor = Display.getCurrent().getSystemColor(SWT.COLOR_GRAY);
@@ -94,10 +99,13 @@ public class LayoutCanvasPaintListener implements PaintListener {
 
 		for (Entry<String, LayoutPattern> entry : patternMap.entrySet()) {
 			LayoutPattern pattern = entry.getValue();
+			if (!pattern.getBounds().intersects(clipping)) {
+				continue;
+			}
 			gc.setForeground(entry.getKey() == selectedPatternId ? activeColor
 					: (enabledPatternIdSet.contains(pattern.getId()) ? enabledColor : disabledColor));
-			for (LayoutPattern.Line line : pattern.getLines()) {
-				gc.drawLine(line.x0, line.y0, line.x1, line.y1);
+			for (int polylineIndex = 0; polylineIndex < pattern.getPolylineCount(); ++polylineIndex) {
+				gc.drawPolyline(pattern.getPolylinePoints(polylineIndex));
 			}
 		}
 	}
@@ -346,7 +346,7 @@ public class LayoutEditor extends EditorPart implements IDesignEntityChangeListe
 		List<IDesignEntity> designEntityList = layout.getDesignEntityList();
 		designEntityList.add(designEntity);
 		layout.notifyDesignEntitiesChanged();
-		layoutCanvas.redraw();
+		layoutCanvas.redrawPatterns();
 	}
 
 	private String getNextDesignEntityId() {
@@ -369,7 +369,7 @@ public class LayoutEditor extends EditorPart implements IDesignEntityChangeListe
 
 		entity.setPosition(position);
 		layout.notifyDesignEntitiesChanged();
-		layoutCanvas.redraw();
+		layoutCanvas.redrawPatterns();
 	}
 
 	@Override
@@ -377,7 +377,7 @@ public class LayoutEditor extends EditorPart implements IDesignEntityChangeListe
 
 		entity.setRotationAngle(angle);
 		layout.notifyDesignEntitiesChanged();
-		layoutCanvas.redraw();
+		layoutCanvas.redrawPatterns();
 	}
 
 	@Override
@@ -385,7 +385,7 @@ public class LayoutEditor extends EditorPart implements IDesignEntityChangeListe
 
 		entity.setScale(scale);
 		layout.notifyDesignEntitiesChanged();
-		layoutCanvas.redraw();
+		layoutCanvas.redrawPatterns();
 	}
 
 	@Override
@@ -394,7 +394,7 @@ public class LayoutEditor extends EditorPart implements IDesignEntityChangeListe
 		List<IDesignEntity> designEntityList = layout.getDesignEntityList();
 		designEntityList.remove(designEntity);
 		layout.notifyDesignEntitiesChanged();
-		layoutCanvas.redraw();
+		layoutCanvas.redrawPatterns();
 	}
 
 	@Override
@@ -18,7 +18,6 @@
  */
 package com.github.librecut.internal.layouteditor;
 
-import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -40,6 +39,8 @@ public class LayoutModel implements ILayout {
 	private Map<String, LayoutPattern> cachedPatternMap;
 	private RenderingParameters cachedRenderingParameters;
 	private Point cachedTopLeftCornerDrawableArea;
+	private Map<String, PatternCacheEntry> patternCache = new HashMap<>();
+	private int modificationCount;
 
 	public LayoutModel(ILayout layout) {
 		this.wrappedLayout = layout;
@@ -47,45 +48,122 @@ public class LayoutModel implements ILayout {
 
 	public Map<String, LayoutPattern> getPatternMap(RenderingParameters renderingParameters, Rectangle drawableArea) {
 
+		Map<String, PatternCacheEntry> previousPatternCache;
+		int previousModificationCount;
 		synchronized (this) {
-			if ((cachedPatternMap != null) && renderingParameters.equals(cachedRenderingParameters)
-					&& (cachedTopLeftCornerDrawableArea.x == drawableArea.x)
-					&& (cachedTopLeftCornerDrawableArea.y == drawableArea.y)) {
+			if (isCachedPatternMapValid(renderingParameters, drawableArea)) {
 				return cachedPatternMap;
 			}
+			previousPatternCache = patternCache;
+			previousModificationCount = modificationCount;
 		}
 
 		List<IDesignEntity> designEntityList = wrappedLayout.getDesignEntityList();
 		boolean mirrorDesigns = wrappedLayout.isMirrored();
 		IPoint corner = renderingParameters.getFrontLeftCorner();
+		Map<String, PatternCacheEntry> newPatternCache = new HashMap<>(designEntityList.size());
 		Map<String, LayoutPattern> patternMap = createPatternMap(designEntityList, mirrorDesigns, corner.getX(),
-				corner.getY(), renderingParameters.getDpi(), drawableArea);
+				corner.getY(), renderingParameters.getDpi(), drawableArea, previousPatternCache, newPatternCache);
 
 		synchronized (this) {
-			cachedPatternMap = patternMap;
-			cachedRenderingParameters = renderingParameters;
-			cachedTopLeftCornerDrawableArea = new Point(drawableArea.x, drawableArea.y);
+			patternCache = newPatternCache;
+			// entities changed during the creation may not be reflected
+			if (modificationCount == previousModificationCount) {
+				cachedPatternMap = patternMap;
+				cachedRenderingParameters = renderingParameters;
+				cachedTopLeftCornerDrawableArea = new Point(drawableArea.x, drawableArea.y);
+			}
 
 			return patternMap;
 		}
 	}
 
+	/**
+	 * Returns the patterns if they are up to date, <code>null</code>
+	 * otherwise.
+	 */
+	public synchronized Map<String, LayoutPattern> getCachedPatternMap(RenderingParameters renderingParameters,
+			Rectangle drawableArea) {
+
+		if (isCachedPatternMapValid(renderingParameters, drawableArea)) {
+			return cachedPatternMap;
+		}
+		return null;
+	}
+
+	/**
+	 * Returns the last created pattern of each design entity moved to the
+	 * current position of the entity. Rotation, scaling and mirroring may not
+	 * be up to date, and entities without a pattern are missing.
+	 */
+	public Map<String, LayoutPattern> getPreviewPatternMap(RenderingParameters renderingParameters,
+			Rectangle drawableArea) {
+
+		Map<String, PatternCacheEntry> currentPatternCache;
+		synchronized (this) {
+			currentPatternCache = patternCache;
+		}
+
+		List<IDesignEntity> designEntityList = wrappedLayout.getDesignEntityList();
+		IPoint corner = renderingParameters.getFrontLeftCorner();
+		Map<String, LayoutPattern> patternMap = new HashMap<>(designEntityList.size());
+		for (IDesignEntity entity : designEntityList) {
+			PatternCacheEntry entry = currentPatternCache.get(entity.getId());
+			if (entry != null) {
+				Point offset = getOffset(entity, corner.getX(), corner.getY(), renderingParameters.getDpi(),
+						drawableArea);
+				patternMap.put(entity.getId(), entry.pattern.moveTo(offset));
+			}
+		}
+		return patternMap;
+	}
+
+	private boolean isCachedPatternMapValid(RenderingParameters renderingParameters, Rectangle drawableArea) {
+
+		return (cachedPatternMap != null) && renderingParameters.equals(cachedRenderingParameters)
+				&& (cachedTopLeftCornerDrawableArea.x == drawableArea.x)
+				&& (cachedTopLeftCornerDrawableArea.y == drawableArea.y);
+	}
+
+	/**
+	 * Creates the patterns of all design entities. Patterns of entities which
+	 * have only been moved since the last call are taken from the cache and
+	 * moved to their new offset.
+	 */
 	private static Map<String, LayoutPattern> createPatternMap(List<IDesignEntity> designEntityList,
-			boolean mirrorDesigns, double offsetX, double offsetY, double dpi, Rectangle drawableArea) {
+			boolean mirrorDesigns, double offsetX, double offsetY, double dpi, Rectangle drawableArea,
+			Map<String, PatternCacheEntry> previousPatternCache, Map<String, PatternCacheEntry> newPatternCache) {
 
 		Map<String, LayoutPattern> patternMap = new HashMap<>(designEntityList.size());
 		for (IDesignEntity entity : designEntityList) {
+			Point offset = getOffset(entity, offsetX, offsetY, dpi, drawableArea);
+
+			// entities may be changed concurrently, so each value is read once
 			IDesign design = entity.getDesign();
-			IPattern pattern = design.createPattern(entity.getRotationAngle(), entity.getScale(), mirrorDesigns, dpi,
-					dpi);
-			IPoint positionInches = entity.getPosition();
-			Point offset = new Point((int) ((positionInches.getX() - offsetX) * dpi) + drawableArea.x,
-					(int) ((positionInches.getY() - offsetY) * dpi) + drawableArea.y);
-			patternMap.put(entity.getId(), LayoutPattern.createPattern(entity.getId(), pattern, offset));
+			double rotationAngle = entity.getRotationAngle();
+			double scale = entity.getScale();
+			PatternCacheEntry entry = previousPatternCache.get(entity.getId());
+			if ((entry == null) || !entry.matches(design, rotationAngle, scale, mirrorDesigns, dpi)) {
+				IPattern pattern = design.createPattern(rotationAngle, scale, mirrorDesigns, dpi, dpi);
+				entry = new PatternCacheEntry(design, rotationAngle, scale, mirrorDesigns, dpi,
+						LayoutPattern.createPattern(entity.getId(), pattern, offset));
+			} else {
+				entry = new PatternCacheEntry(entry, entry.pattern.moveTo(offset));
+			}
+			newPatternCache.put(entity.getId(), entry);
+			patternMap.put(entity.getId(), entry.pattern);
 		}
 		return patternMap;
 	}
 
+	private static Point getOffset(IDesignEntity entity, double offsetX, double offsetY, double dpi,
+			Rectangle drawableArea) {
+
+		IPoint positionInches = entity.getPosition();
+		return new Point((int) ((positionInches.getX() - offsetX) * dpi) + drawableArea.x,
+				(int) ((positionInches.getY() - offsetY) * dpi) + drawableArea.y);
+	}
+
 	@Override
 	public synchronized String getName() {
 		return wrappedLayout.getName();
@@ -105,16 +183,24 @@ public class LayoutModel implements ILayout {
 	public synchronized void setMedia(IMedia media) {
 
 		cachedPatternMap = null;
+		++modificationCount;
 		wrappedLayout.setMedia(media);
 	}
 
+	/**
+	 * Returns the design entities of the wrapped layout. The list is iterated
+	 * off the UI thread while the editor modifies it, so it must be a
+	 * copy-on-write list.
+	 */
 	@Override
 	public List<IDesignEntity> getDesignEntityList() {
-		return Collections.synchronizedList(wrappedLayout.getDesignEntityList());
+		return wrappedLayout.getDesignEntityList();
 	}
 
 	public synchronized void notifyDesignEntitiesChanged() {
+
 		cachedPatternMap = null;
+		++modificationCount;
 	}
 
 	@Override
@@ -126,6 +212,51 @@ public class LayoutModel implements ILayout {
 	public synchronized void setMirrored(boolean enable) {
 
 		cachedPatternMap = null;
+		++modificationCount;
 		wrappedLayout.setMirrored(enable);
 	}
+
+	/**
+	 * Pattern of a design entity together with the parameters it has been
+	 * created with, except for the position.
+	 */
+	private static final class PatternCacheEntry {
+
+		private final IDesign design;
+		private final double rotationAngle;
+		private final double scale;
+		private final boolean mirrored;
+		private final double dpi;
+		private final LayoutPattern pattern;
+
+		PatternCacheEntry(IDesign design, double rotationAngle, double scale, boolean mirrored, double dpi,
+				LayoutPattern pattern) {
+
+			this.design = design;
+			this.rotationAngle = rotationAngle;
+			this.scale = scale;
+			this.mirrored = mirrored;
+			this.dpi = dpi;
+			this.pattern = pattern;
+		}
+
+		PatternCacheEntry(PatternCacheEntry entry, LayoutPattern pattern) {
+
+			this.design = entry.design;
+			this.rotationAngle = entry.rotationAngle;
+			this.scale = entry.scale;
+			this.mirrored = entry.mirrored;
+			this.dpi = entry.dpi;
+			this.pattern = pattern;
+		}
+
+		boolean matches(IDesign design, double rotationAngle, double scale, boolean mirrored, double dpi) {
+
+			return (this.design == design)
+					&& (Double.doubleToLongBits(this.rotationAngle) == Double.doubleToLongBits(rotationAngle))
+					&& (Double.doubleToLongBits(this.scale) == Double.doubleToLongBits(scale))
+					&& (this.mirrored == mirrored)
+					&& (Double.doubleToLongBits(this.dpi) == Double.doubleToLongBits(dpi));
+		}
+	}
 }
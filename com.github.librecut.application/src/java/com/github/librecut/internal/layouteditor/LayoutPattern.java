@@ -18,103 +18,379 @@
  */
 package com.github.librecut.internal.layouteditor;
 
-import java.util.ArrayList;
-import java.util.Collection;
-import java.util.Iterator;
-import java.util.List;
+import java.util.Arrays;
 
 import org.eclipse.swt.graphics.Point;
+import org.eclipse.swt.graphics.Rectangle;
 
 import com.github.librecut.api.design.model.IPattern;
-import com.github.librecut.api.design.model.IPoint;
 import com.github.librecut.api.design.model.IPolyline;
+import com.github.librecut.common.cutter.path.PolylineSimplifier;
 
+/**
+ * Pattern in screen coordinates. The points of all polylines are stored as
+ * interleaved X and Y values in a single array, polyline <code>i</code> covers
+ * the points from <code>getPolylineStart(i)</code> to
+ * <code>getPolylineEnd(i) - 1</code>.
+ * <p>
+ * The coordinates are stored relative to the offset of the pattern, so moving
+ * the pattern does not touch them. Details below the size of a pixel are
+ * removed when the pattern is created, so the number of points depends on
+ * the resolution of the screen rather than on the design.
+ * </p>
+ * <p>
+ * Hit testing uses a uniform grid over the line segments, which is built on
+ * the first test. Segment <code>i</code> connects the points <code>i - 1</code>
+ * and <code>i</code>.
+ * </p>
+ */
 public class LayoutPattern {
 
+	private static final int MIN_CELL_SIZE = 8;
+
+	/**
+	 * Maximum deviation of the painted polylines in pixels.
+	 */
+	private static final double SCREEN_TOLERANCE = 0.5d;
+
 	private final String id;
-	private final List<Line> lineList;
+	private final int[] coordinates;
+	private final int[] polylineStarts;
+	private final int offsetX;
+	private final int offsetY;
+
+	private final int minX;
+	private final int minY;
+	private final int maxX;
+	private final int maxY;
+
+	private volatile SegmentGrid segmentGrid;
+	private volatile int[][] polylinePoints;
 
 	public static LayoutPattern createPattern(String id, IPattern pattern, Point offset) {
 
-		List<Line> lineList = new ArrayList<Line>();
+		int[] coordinates = new int[256];
+		int[] polylineStarts = new int[17];
+		int pointCount = 0;
+		int polylineCount = 0;
+		double[] buffer = null;
+		PolylineSimplifier simplifier = new PolylineSimplifier(SCREEN_TOLERANCE);
 		for (IPolyline polyline : pattern.getPolylines(true)) {
-			Iterator<IPoint> iterator = polyline.iterator();
-			IPoint p0 = iterator.next();
-			while (iterator.hasNext()) {
-				IPoint p1 = iterator.next();
-				lineList.add(new Line((int) Math.round(p0.getX()) + offset.x, (int) Math.round(p0.getY()) + offset.y,
-						(int) Math.round(p1.getX()) + offset.x, (int) Math.round(p1.getY()) + offset.y));
-				p0 = p1;
+			IPolyline simplifiedPolyline = simplifier.simplify(polyline);
+			int polylinePointCount = simplifiedPolyline.getPointCount();
+			if (polylinePointCount < 2) {
+				continue;
+			}
+			buffer = simplifiedPolyline.getCoordinates(buffer);
+			if (2 * (pointCount + polylinePointCount) > coordinates.length) {
+				coordinates = Arrays.copyOf(coordinates,
+						Math.max(2 * coordinates.length, 2 * (pointCount + polylinePointCount)));
 			}
+
+			// points falling onto the same pixel as their predecessor are
+			// dropped
+			int start = pointCount;
+			for (int i = 0; i < 2 * polylinePointCount; i += 2) {
+				int x = (int) Math.round(buffer[i]);
+				int y = (int) Math.round(buffer[i + 1]);
+				if ((pointCount == start) || (x != coordinates[2 * pointCount - 2])
+						|| (y != coordinates[2 * pointCount - 1])) {
+					coordinates[2 * pointCount] = x;
+					coordinates[2 * pointCount + 1] = y;
+					++pointCount;
+				}
+			}
+			if (pointCount - start < 2) {
+				// polylines within a single pixel are drawn as a dot
+				coordinates[2 * pointCount] = coordinates[2 * start];
+				coordinates[2 * pointCount + 1] = coordinates[2 * start + 1];
+				++pointCount;
+			}
+			if (polylineCount + 2 > polylineStarts.length) {
+				polylineStarts = Arrays.copyOf(polylineStarts, 2 * polylineStarts.length);
+			}
+			++polylineCount;
+			polylineStarts[polylineCount] = pointCount;
 		}
 
-		return new LayoutPattern(id, lineList);
+		return new LayoutPattern(id, Arrays.copyOf(coordinates, 2 * pointCount),
+				Arrays.copyOf(polylineStarts, polylineCount + 1), offset.x, offset.y);
 	}
 
-	private LayoutPattern(String id, List<Line> lineList) {
+	private LayoutPattern(String id, int[] coordinates, int[] polylineStarts, int offsetX, int offsetY) {
 
 		this.id = id;
-		this.lineList = lineList;
+		this.coordinates = coordinates;
+		this.polylineStarts = polylineStarts;
+		this.offsetX = offsetX;
+		this.offsetY = offsetY;
+
+		int minX = Integer.MAX_VALUE;
+		int minY = Integer.MAX_VALUE;
+		int maxX = Integer.MIN_VALUE;
+		int maxY = Integer.MIN_VALUE;
+		for (int i = 0; i < coordinates.length; i += 2) {
+			minX = Math.min(minX, coordinates[i]);
+			maxX = Math.max(maxX, coordinates[i]);
+			minY = Math.min(minY, coordinates[i + 1]);
+			maxY = Math.max(maxY, coordinates[i + 1]);
+		}
+		this.minX = minX;
+		this.minY = minY;
+		this.maxX = maxX;
+		this.maxY = maxY;
+	}
+
+	private LayoutPattern(LayoutPattern pattern, int offsetX, int offsetY) {
+
+		this.id = pattern.id;
+		this.coordinates = pattern.coordinates;
+		this.polylineStarts = pattern.polylineStarts;
+		this.offsetX = offsetX;
+		this.offsetY = offsetY;
+		this.minX = pattern.minX;
+		this.minY = pattern.minY;
+		this.maxX = pattern.maxX;
+		this.maxY = pattern.maxY;
+		this.segmentGrid = pattern.segmentGrid;
+	}
+
+	/**
+	 * Returns this pattern moved to the given offset. The moved pattern shares
+	 * the points and the hit testing grid of this pattern.
+	 */
+	public LayoutPattern moveTo(Point offset) {
+
+		if ((offset.x == offsetX) && (offset.y == offsetY)) {
+			return this;
+		}
+		return new LayoutPattern(this, offset.x, offset.y);
 	}
 
 	public String getId() {
 		return id;
 	}
 
-	public Collection<Line> getLines() {
-		return lineList;
+	public int getPolylineCount() {
+		return polylineStarts.length - 1;
 	}
 
-	public static class Line {
+	public int getPolylineStart(int polylineIndex) {
+		return polylineStarts[polylineIndex];
+	}
+
+	public int getPolylineEnd(int polylineIndex) {
+		return polylineStarts[polylineIndex + 1];
+	}
 
-		public final int x0;
-		public final int y0;
-		public final int x1;
-		public final int y1;
+	public int getX(int pointIndex) {
+		return coordinates[2 * pointIndex] + offsetX;
+	}
 
-		private final int dx;
-		private final int dy;
-		private final double q;
+	public int getY(int pointIndex) {
+		return coordinates[2 * pointIndex + 1] + offsetY;
+	}
 
-		public Line(int x0, int y0, int x1, int y1) {
+	/**
+	 * Returns the bounds of the pixels covered by this pattern.
+	 */
+	public Rectangle getBounds() {
 
-			this.x0 = x0;
-			this.y0 = y0;
-			this.x1 = x1;
-			this.y1 = y1;
-			this.dx = x1 - x0;
-			this.dy = y1 - y0;
-			this.q = this.dx * this.dx + this.dy * this.dy;
+		if (coordinates.length == 0) {
+			return new Rectangle(offsetX, offsetY, 0, 0);
 		}
+		return new Rectangle(minX + offsetX, minY + offsetY, maxX - minX + 1, maxY - minY + 1);
+	}
 
-		public boolean contains(int x, int y, double epsilon) {
+	/**
+	 * Returns the points of a polyline as interleaved X and Y values, as
+	 * expected by <code>GC.drawPolyline</code>. The returned array must not be
+	 * modified.
+	 */
+	public int[] getPolylinePoints(int polylineIndex) {
 
-			if (x0 > x1) {
-				if ((x < x1 - (int) epsilon) || (x > x0 + (int) epsilon)) {
-					return false;
-				}
-			} else {
-				if ((x < x0 - (int) epsilon) || (x > x1 + (int) epsilon)) {
-					return false;
+		int[][] points = polylinePoints;
+		if (points == null) {
+			points = new int[getPolylineCount()][];
+			for (int i = 0; i < points.length; ++i) {
+				int start = getPolylineStart(i);
+				int end = getPolylineEnd(i);
+				int[] polyline = new int[2 * (end - start)];
+				for (int j = 0; j < end - start; ++j) {
+					polyline[2 * j] = coordinates[2 * (start + j)] + offsetX;
+					polyline[2 * j + 1] = coordinates[2 * (start + j) + 1] + offsetY;
 				}
+				points[i] = polyline;
 			}
+			polylinePoints = points;
+		}
+		return points[polylineIndex];
+	}
 
-			if (y0 > y1) {
-				if ((y < y1 - (int) epsilon) || (y > y0 + (int) epsilon)) {
-					return false;
-				}
-			} else {
-				if ((y < y0 - (int) epsilon) || (y > y1 + (int) epsilon)) {
-					return false;
+	/**
+	 * Checks whether a line of this pattern passes the given point.
+	 */
+	public boolean contains(int x, int y, double epsilon) {
+
+		// the grid and the bounds are relative to the offset
+		int px = x - offsetX;
+		int py = y - offsetY;
+		int distance = (int) Math.ceil(epsilon);
+		if ((px < minX - distance) || (px > maxX + distance) || (py < minY - distance) || (py > maxY + distance)) {
+			return false;
+		}
+
+		SegmentGrid grid = segmentGrid;
+		if (grid == null) {
+			grid = new SegmentGrid(coordinates, polylineStarts, minX, minY, maxX, maxY);
+			segmentGrid = grid;
+		}
+
+		// the closest point of a segment within the distance lies in one of
+		// the cells around the point
+		int firstColumn = grid.getColumn(px - distance);
+		int lastColumn = grid.getColumn(px + distance);
+		int firstRow = grid.getRow(py - distance);
+		int lastRow = grid.getRow(py + distance);
+		for (int row = firstRow; row <= lastRow; ++row) {
+			for (int column = firstColumn; column <= lastColumn; ++column) {
+				int cell = row * grid.columnCount + column;
+				for (int j = grid.cellStarts[cell]; j < grid.cellStarts[cell + 1]; ++j) {
+					int i = 2 * grid.segments[j];
+					if (lineContains(coordinates[i - 2], coordinates[i - 1], coordinates[i], coordinates[i + 1], px,
+							py, epsilon)) {
+						return true;
+					}
 				}
 			}
+		}
+		return false;
+	}
+
+	private static boolean lineContains(int x0, int y0, int x1, int y1, int x, int y, double epsilon) {
+
+		if (x0 > x1) {
+			if ((x < x1 - (int) epsilon) || (x > x0 + (int) epsilon)) {
+				return false;
+			}
+		} else {
+			if ((x < x0 - (int) epsilon) || (x > x1 + (int) epsilon)) {
+				return false;
+			}
+		}
+
+		if (y0 > y1) {
+			if ((y < y1 - (int) epsilon) || (y > y0 + (int) epsilon)) {
+				return false;
+			}
+		} else {
+			if ((y < y0 - (int) epsilon) || (y > y1 + (int) epsilon)) {
+				return false;
+			}
+		}
+
+		int dx = x1 - x0;
+		int dy = y1 - y0;
+		double q = dx * dx + dy * dy;
+		if (q == 0.0d) {
+			return (x - x0) * (x - x0) + (y - y0) * (y - y0) <= epsilon * epsilon;
+		}
+		double f = ((x - x0) * dx + (y - y0) * dy) / q;
+
+		double xo = x0 + f * dx;
+		double yo = y0 + f * dy;
+
+		return (xo - x) * (xo - x) + (yo - y) * (yo - y) <= epsilon * epsilon;
+	}
+
+	/**
+	 * Uniform grid over the bounding box of the pattern. Each cell lists the
+	 * segments passing it, stored consecutively in a single array.
+	 */
+	private static final class SegmentGrid {
+
+		private final int originX;
+		private final int originY;
+		private final int cellSize;
+		private final int columnCount;
+		private final int rowCount;
+		private final int[] cellStarts;
+		private final int[] segments;
+
+		SegmentGrid(int[] coordinates, int[] polylineStarts, int minX, int minY, int maxX, int maxY) {
+
+			int segmentCount = (coordinates.length / 2) - (polylineStarts.length - 1);
+
+			// about one segment per cell
+			long area = (long) (maxX - minX + 1) * (maxY - minY + 1);
+			int size = (int) Math.ceil(Math.sqrt((double) area / Math.max(segmentCount, 1)));
+			originX = minX;
+			originY = minY;
+			cellSize = Math.max(size, MIN_CELL_SIZE);
+			columnCount = (maxX - minX) / cellSize + 1;
+			rowCount = (maxY - minY) / cellSize + 1;
+
+			// count the segments of each cell first, then fill them in
+			cellStarts = new int[columnCount * rowCount + 1];
+			forEachSegmentCell(coordinates, polylineStarts, null);
+			for (int cell = 0; cell < columnCount * rowCount; ++cell) {
+				cellStarts[cell + 1] += cellStarts[cell];
+			}
+			segments = new int[cellStarts[columnCount * rowCount]];
+			int[] cellEnds = Arrays.copyOf(cellStarts, columnCount * rowCount);
+			forEachSegmentCell(coordinates, polylineStarts, cellEnds);
+		}
+
+		int getColumn(int x) {
+			return Math.min(Math.max((x - originX) / cellSize, 0), columnCount - 1);
+		}
 
-			double f = ((x - x0) * dx + (y - y0) * dy) / q;
+		int getRow(int y) {
+			return Math.min(Math.max((y - originY) / cellSize, 0), rowCount - 1);
+		}
 
-			double xo = x0 + f * dx;
-			double yo = y0 + f * dy;
+		/**
+		 * Visits the cells passed by each segment. Long segments are split
+		 * into pieces no longer than a cell, so only the cells along the
+		 * segment are visited, and some of them twice.
+		 */
+		private void forEachSegmentCell(int[] coordinates, int[] polylineStarts, int[] cellEnds) {
 
-			return (xo - x) * (xo - x) + (yo - y) * (yo - y) <= epsilon * epsilon;
+			for (int polylineIndex = 0; polylineIndex < polylineStarts.length - 1; ++polylineIndex) {
+				int end = polylineStarts[polylineIndex + 1];
+				for (int i = polylineStarts[polylineIndex] + 1; i < end; ++i) {
+					int x0 = coordinates[2 * i - 2];
+					int y0 = coordinates[2 * i - 1];
+					int dx = coordinates[2 * i] - x0;
+					int dy = coordinates[2 * i + 1] - y0;
+					int pieceCount = Math.max(Math.abs(dx), Math.abs(dy)) / cellSize + 1;
+					int previousCell = -1;
+					for (int piece = 0; piece < pieceCount; ++piece) {
+						int xa = x0 + (int) ((long) dx * piece / pieceCount);
+						int ya = y0 + (int) ((long) dy * piece / pieceCount);
+						int xb = x0 + (int) ((long) dx * (piece + 1) / pieceCount);
+						int yb = y0 + (int) ((long) dy * (piece + 1) / pieceCount);
+						int firstColumn = getColumn(Math.min(xa, xb));
+						int lastColumn = getColumn(Math.max(xa, xb));
+						int firstRow = getRow(Math.min(ya, yb));
+						int lastRow = getRow(Math.max(ya, yb));
+						for (int row = firstRow; row <= lastRow; ++row) {
+							for (int column = firstColumn; column <= lastColumn; ++column) {
+								int cell = row * columnCount + column;
+								if (cell == previousCell) {
+									continue;
+								}
+								previousCell = cell;
+								if (cellEnds == null) {
+									++cellStarts[cell + 1];
+								} else {
+									segments[cellEnds[cell]++] = i;
+								}
+							}
+						}
+					}
+				}
+			}
 		}
 	}
 }
@@ -0,0 +1,87 @@
+/**
+ * Copyright (C) 2016 Gerhard Mitzner.
+ * 
+ * This file is part of LibreCut.
+ * 
+ * LibreCut is free software: you can redistribute it and/or modify it under the
+ * terms of the GNU Lesser General Public License as published by the Free
+ * Software Foundation, either version 3 of the License, or (at your option) any
+ * later version.
+ * 
+ * LibreCut is distributed in the hope that it will be useful, but WITHOUT ANY
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR
+ * A PARTICULAR PURPOSE. See the GNU Lesser General Public License for more
+ * details.
+ * 
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with LibreCut. If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.github.librecut.internal.layouteditor;
+
+import java.util.function.Supplier;
+
+import org.eclipse.core.runtime.IProgressMonitor;
+import org.eclipse.core.runtime.IStatus;
+import org.eclipse.core.runtime.Status;
+import org.eclipse.core.runtime.jobs.Job;
+import org.eclipse.swt.graphics.Rectangle;
+import org.eclipse.swt.widgets.Display;
+
+/**
+ * Creates the layout patterns in the background and redraws the changed
+ * patterns when they are ready. Only the latest request is processed,
+ * requests made while the job is running are combined into one further run.
+ */
+public class LayoutPatternJob extends Job {
+
+	private final LayoutCanvas canvas;
+	private final Display display;
+	private final Supplier<LayoutModel> layoutModelSupplier;
+
+	private RenderingParameters requestedRenderingParameters;
+	private Rectangle requestedDrawableArea;
+
+	public LayoutPatternJob(LayoutCanvas canvas, Supplier<LayoutModel> layoutModelSupplier) {
+
+		super("Creating layout patterns");
+		this.canvas = canvas;
+		this.display = canvas.getDisplay();
+		this.layoutModelSupplier = layoutModelSupplier;
+		setSystem(true);
+		setPriority(INTERACTIVE);
+	}
+
+	public void request(RenderingParameters renderingParameters, Rectangle drawableArea) {
+
+		synchronized (this) {
+			requestedRenderingParameters = renderingParameters;
+			requestedDrawableArea = drawableArea;
+		}
+		schedule();
+	}
+
+	@Override
+	protected IStatus run(IProgressMonitor monitor) {
+
+		RenderingParameters renderingParameters;
+		Rectangle drawableArea;
+		synchronized (this) {
+			renderingParameters = requestedRenderingParameters;
+			drawableArea = requestedDrawableArea;
+		}
+
+		layoutModelSupplier.get().getPatternMap(renderingParameters, drawableArea);
+		if (monitor.isCanceled()) {
+			return Status.CANCEL_STATUS;
+		}
+
+		if (!display.isDisposed()) {
+			display.asyncExec(() -> {
+				if (!canvas.isDisposed()) {
+					canvas.redrawPatterns();
+				}
+			});
+		}
+		return Status.OK_STATUS;
+	}
+}
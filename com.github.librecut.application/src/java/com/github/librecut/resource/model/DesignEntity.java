@@ -27,10 +27,10 @@ public class DesignEntity implements IDesignEntity {
 	private final String id;
 	private final IDesign design;
 
-	private IPoint position;
-	private double rotationAngle;
-	private double scale;
-	private boolean enabled;
+	private volatile IPoint position;
+	private volatile double rotationAngle;
+	private volatile double scale;
+	private volatile boolean enabled;
 
 	public DesignEntity(String id, IDesign design) {
 
@@ -18,8 +18,8 @@
  */
 package com.github.librecut.resource.model;
 
-import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
 
 import com.github.librecut.api.media.model.IMedia;
 
@@ -31,7 +31,8 @@ public class Layout implements ILayout {
 	private boolean mirrored;
 
 	public Layout() {
-		this.designEntityList = new ArrayList<IDesignEntity>();
+		// iterated by the pattern creation off the UI thread
+		this.designEntityList = new CopyOnWriteArrayList<IDesignEntity>();
 	}
 
 	@Override
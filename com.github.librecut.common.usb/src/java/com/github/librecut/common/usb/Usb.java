@@ -20,22 +20,39 @@ package com.github.librecut.common.usb;
 
 import java.nio.ByteBuffer;
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 
+import org.eclipse.core.runtime.IStatus;
+import org.eclipse.core.runtime.Platform;
+import org.eclipse.core.runtime.Status;
+import org.osgi.framework.Bundle;
+import org.osgi.framework.FrameworkUtil;
 import org.usb4java.Context;
 import org.usb4java.Device;
 import org.usb4java.DeviceDescriptor;
 import org.usb4java.DeviceHandle;
 import org.usb4java.DeviceList;
+import org.usb4java.HotplugCallback;
+import org.usb4java.HotplugCallbackHandle;
 import org.usb4java.LibUsb;
 
 public class Usb {
 
 	private final Context context;
+	private final UsbEventLoop eventLoop;
+	private final Map<String, CachedDevice> deviceCache;
+	private final Map<UsbDeviceDescriptor, UsbDeviceSession> sessionMap;
+	private final Map<IHotplugListener, HotplugCallbackHandle> hotplugCallbackMap;
 
 	private Usb(Context context) {
 
 		this.context = context;
+		this.eventLoop = new UsbEventLoop(context);
+		this.deviceCache = new HashMap<String, CachedDevice>();
+		this.sessionMap = new HashMap<UsbDeviceDescriptor, UsbDeviceSession>();
+		this.hotplugCallbackMap = new HashMap<IHotplugListener, HotplugCallbackHandle>();
 	}
 
 	public static Usb create() throws UsbException {
@@ -46,14 +63,158 @@ public class Usb {
 			throw new UsbException("Cannot initialize libusb.", result);
 		}
 
-		return new Usb(context);
+		Usb usb = new Usb(context);
+		usb.eventLoop.start();
+		return usb;
 	}
 
 	public static void destroy(Usb usb) {
 
+		synchronized (usb.hotplugCallbackMap) {
+			for (HotplugCallbackHandle callbackHandle : usb.hotplugCallbackMap.values()) {
+				LibUsb.hotplugDeregisterCallback(usb.context, callbackHandle);
+			}
+			usb.hotplugCallbackMap.clear();
+		}
+		synchronized (usb.sessionMap) {
+			for (UsbDeviceSession session : usb.sessionMap.values()) {
+				session.invalidate();
+			}
+			usb.sessionMap.clear();
+		}
+		synchronized (usb.deviceCache) {
+			for (CachedDevice cachedDevice : usb.deviceCache.values()) {
+				LibUsb.unrefDevice(cachedDevice.device);
+			}
+			usb.deviceCache.clear();
+		}
+
+		usb.eventLoop.abort();
 		LibUsb.exit(usb.context);
 	}
 
+	/**
+	 * Opens a session to the given device. If there is already a session for
+	 * this device, the existing session is shared and its reference count is
+	 * incremented. Every opened session must be closed again.
+	 * 
+	 * @param descriptor
+	 *            the device descriptor.
+	 * @param interfaceId
+	 *            the id of the interface to be claimed.
+	 * @return the session.
+	 */
+	public UsbDeviceSession openSession(UsbDeviceDescriptor descriptor, int interfaceId) {
+
+		synchronized (sessionMap) {
+			UsbDeviceSession session = sessionMap.get(descriptor);
+			if (session == null) {
+				session = new UsbDeviceSession(this, descriptor, interfaceId);
+				sessionMap.put(descriptor, session);
+			}
+			session.retain();
+			return session;
+		}
+	}
+
+	void releaseSession(UsbDeviceSession session) {
+
+		synchronized (sessionMap) {
+			if (session.release() > 0) {
+				return;
+			}
+			if (sessionMap.get(session.getDescriptor()) == session) {
+				sessionMap.remove(session.getDescriptor());
+			}
+			// close the device before a new session for it can be opened,
+			// which could not claim the interface otherwise
+			session.invalidate();
+		}
+	}
+
+	private static void logError(String message, Throwable e) {
+
+		Bundle bundle = FrameworkUtil.getBundle(Usb.class);
+		if (bundle != null) {
+			Platform.getLog(bundle).log(new Status(IStatus.ERROR, bundle.getSymbolicName(), message, e));
+		}
+	}
+
+	public boolean isHotplugSupported() {
+		return LibUsb.hasCapability(LibUsb.CAP_HAS_HOTPLUG);
+	}
+
+	/**
+	 * Registers a listener which is notified whenever a matching device is
+	 * attached or detached. The listener is called on the USB event handling
+	 * thread and therefore must neither block nor communicate with devices.
+	 * 
+	 * @param vendorId
+	 *            the vendor id of the devices to be observed or
+	 *            {@link LibUsb#HOTPLUG_MATCH_ANY}.
+	 * @param productId
+	 *            the product id of the devices to be observed or
+	 *            {@link LibUsb#HOTPLUG_MATCH_ANY}.
+	 * @param listener
+	 *            the listener.
+	 * @throws UsbException
+	 *             if hotplug notifications are not supported on this platform.
+	 */
+	public void addHotplugListener(int vendorId, int productId, final IHotplugListener listener)
+			throws UsbException {
+
+		if (!isHotplugSupported()) {
+			throw new UsbException("Hotplug notifications are not supported.", LibUsb.ERROR_NOT_SUPPORTED);
+		}
+
+		HotplugCallback callback = new HotplugCallback() {
+
+			@Override
+			public int processEvent(Context context, Device device, int event, Object userData) {
+
+				UsbDeviceDescriptor descriptor;
+				try {
+					descriptor = createDescriptor(device);
+				} catch (UsbException e) {
+					logError("Cannot read the descriptor of a hotplugged USB device.", e);
+					return 0;
+				}
+				if (event == LibUsb.HOTPLUG_EVENT_DEVICE_LEFT) {
+					evictCachedDevice(descriptor.getBusAddress(), device);
+					listener.handleDeviceDetached(descriptor);
+				} else {
+					listener.handleDeviceAttached(descriptor);
+				}
+				// keep the callback registered
+				return 0;
+			}
+		};
+
+		synchronized (hotplugCallbackMap) {
+			if (hotplugCallbackMap.containsKey(listener)) {
+				return;
+			}
+			HotplugCallbackHandle callbackHandle = new HotplugCallbackHandle();
+			int result = LibUsb.hotplugRegisterCallback(context,
+					LibUsb.HOTPLUG_EVENT_DEVICE_ARRIVED | LibUsb.HOTPLUG_EVENT_DEVICE_LEFT, LibUsb.HOTPLUG_NO_FLAGS,
+					vendorId, productId, LibUsb.HOTPLUG_MATCH_ANY, callback, null, callbackHandle);
+			if (result != LibUsb.SUCCESS) {
+				throw new UsbException("Cannot register hotplug callback.", result);
+			}
+			hotplugCallbackMap.put(listener, callbackHandle);
+		}
+	}
+
+	public void removeHotplugListener(IHotplugListener listener) {
+
+		synchronized (hotplugCallbackMap) {
+			HotplugCallbackHandle callbackHandle = hotplugCallbackMap.remove(listener);
+			if (callbackHandle != null) {
+				LibUsb.hotplugDeregisterCallback(context, callbackHandle);
+			}
+		}
+	}
+
 	public List<UsbDeviceDescriptor> findDevices(IDeviceMatcher matcher) throws UsbException {
 
 		List<UsbDeviceDescriptor> resultList = new ArrayList<UsbDeviceDescriptor>();
@@ -64,12 +225,15 @@ public class Usb {
 			throw new UsbException("Cannot retrieve USB device list.", result);
 		}
 		try {
+			Map<String, CachedDevice> newDeviceCache = new HashMap<String, CachedDevice>();
 			for (Device device : deviceList) {
 				UsbDeviceDescriptor usbDescriptor = createDescriptor(device);
+				newDeviceCache.put(usbDescriptor.getBusAddress(), new CachedDevice(device, usbDescriptor));
 				if (matcher.matches(usbDescriptor)) {
 					resultList.add(usbDescriptor);
 				}
 			}
+			replaceDeviceCache(newDeviceCache);
 		} finally {
 			LibUsb.freeDeviceList(deviceList, true);
 		}
@@ -78,22 +242,53 @@ public class Usb {
 
 	public UsbDeviceHandle openDevice(UsbDeviceDescriptor descriptor) throws UsbException {
 
+		CachedDevice cachedDevice;
+		synchronized (deviceCache) {
+			cachedDevice = deviceCache.get(descriptor.getBusAddress());
+			if ((cachedDevice != null) && cachedDevice.descriptor.equals(descriptor)) {
+				// keep the device alive even if the cache gets replaced
+				LibUsb.refDevice(cachedDevice.device);
+			} else {
+				cachedDevice = null;
+			}
+		}
+		if (cachedDevice != null) {
+			try {
+				DeviceHandle handle = new DeviceHandle();
+				int result = LibUsb.open(cachedDevice.device, handle);
+				if (result == LibUsb.SUCCESS) {
+					return new UsbDeviceHandle(handle, eventLoop);
+				}
+				if (result != LibUsb.ERROR_NO_DEVICE) {
+					throw new UsbException("Cannot open USB device.", result);
+				}
+				evictCachedDevice(descriptor.getBusAddress(), cachedDevice.device);
+			} finally {
+				LibUsb.unrefDevice(cachedDevice.device);
+			}
+		}
+
 		DeviceList deviceList = new DeviceList();
 		int result = LibUsb.getDeviceList(context, deviceList);
 		if (result < 0) {
 			throw new UsbException("Cannot retrieve USB device list.", result);
 		}
 		try {
+			Map<String, CachedDevice> newDeviceCache = new HashMap<String, CachedDevice>();
 			for (Device device : deviceList) {
 				UsbDeviceDescriptor usbDescriptor = createDescriptor(device);
-				if (usbDescriptor.equals(descriptor)) {
-					DeviceHandle handle = new DeviceHandle();
-					result = LibUsb.open(device, handle);
-					if (result != LibUsb.SUCCESS) {
-						throw new UsbException("Cannot open USB device.", result);
-					}
-					return new UsbDeviceHandle(handle);
+				newDeviceCache.put(usbDescriptor.getBusAddress(), new CachedDevice(device, usbDescriptor));
+			}
+			replaceDeviceCache(newDeviceCache);
+
+			CachedDevice candidate = newDeviceCache.get(descriptor.getBusAddress());
+			if ((candidate != null) && candidate.descriptor.equals(descriptor)) {
+				DeviceHandle handle = new DeviceHandle();
+				result = LibUsb.open(candidate.device, handle);
+				if (result != LibUsb.SUCCESS) {
+					throw new UsbException("Cannot open USB device.", result);
 				}
+				return new UsbDeviceHandle(handle, eventLoop);
 			}
 		} finally {
 			LibUsb.freeDeviceList(deviceList, true);
@@ -101,6 +296,31 @@ public class Usb {
 		return null;
 	}
 
+	private void replaceDeviceCache(Map<String, CachedDevice> newDeviceCache) {
+
+		for (CachedDevice cachedDevice : newDeviceCache.values()) {
+			LibUsb.refDevice(cachedDevice.device);
+		}
+		synchronized (deviceCache) {
+			for (CachedDevice cachedDevice : deviceCache.values()) {
+				LibUsb.unrefDevice(cachedDevice.device);
+			}
+			deviceCache.clear();
+			deviceCache.putAll(newDeviceCache);
+		}
+	}
+
+	private void evictCachedDevice(String busAddress, Device device) {
+
+		synchronized (deviceCache) {
+			CachedDevice cachedDevice = deviceCache.get(busAddress);
+			if ((cachedDevice != null) && cachedDevice.device.equals(device)) {
+				deviceCache.remove(busAddress);
+				LibUsb.unrefDevice(device);
+			}
+		}
+	}
+
 	private static UsbDeviceDescriptor createDescriptor(Device device) throws UsbException {
 
 		DeviceDescriptor descriptor = new DeviceDescriptor();
@@ -137,4 +357,23 @@ public class Usb {
 
 		boolean matches(UsbDeviceDescriptor descriptor);
 	}
+
+	public interface IHotplugListener {
+
+		void handleDeviceAttached(UsbDeviceDescriptor descriptor);
+
+		void handleDeviceDetached(UsbDeviceDescriptor descriptor);
+	}
+
+	private static class CachedDevice {
+
+		private final Device device;
+		private final UsbDeviceDescriptor descriptor;
+
+		public CachedDevice(Device device, UsbDeviceDescriptor descriptor) {
+
+			this.device = device;
+			this.descriptor = descriptor;
+		}
+	}
 }
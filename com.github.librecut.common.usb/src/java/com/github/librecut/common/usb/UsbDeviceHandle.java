@@ -21,21 +21,68 @@ package com.github.librecut.common.usb;
 import java.nio.ByteBuffer;
 import java.nio.IntBuffer;
 import java.util.BitSet;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicReference;
 
 import org.usb4java.DeviceHandle;
 import org.usb4java.LibUsb;
+import org.usb4java.Transfer;
+import org.usb4java.TransferCallback;
 
 public class UsbDeviceHandle {
 
+	private static final boolean DUMP_BUFFERS = Boolean.getBoolean("librecut.usb.dump");
+
+	private static final int STATUS_BUFFER_SIZE = 64;
+	private static final int INITIAL_POOLED_BUFFER_SIZE = 4096;
+	private static final int MAX_POOLED_BUFFER_SIZE = 64 * 1024;
+
+	// libusb4java always transfers the whole capacity of a direct buffer,
+	// therefore the pooled buffers are sliced to the actual transfer size
+	private static final ThreadLocal<ByteBuffer> TRANSFER_BUFFER = new ThreadLocal<ByteBuffer>() {
+
+		@Override
+		protected ByteBuffer initialValue() {
+			return ByteBuffer.allocateDirect(INITIAL_POOLED_BUFFER_SIZE);
+		}
+	};
+
+	private static final ThreadLocal<ByteBuffer> STATUS_BUFFER = new ThreadLocal<ByteBuffer>() {
+
+		@Override
+		protected ByteBuffer initialValue() {
+			return ByteBuffer.allocateDirect(STATUS_BUFFER_SIZE);
+		}
+	};
+
+	private static final ThreadLocal<IntBuffer> LENGTH_BUFFER = new ThreadLocal<IntBuffer>() {
+
+		@Override
+		protected IntBuffer initialValue() {
+			return IntBuffer.allocate(1);
+		}
+	};
+
 	private final BitSet claimedInterfaceIdSet;
 	private final BitSet kernelDetachedSet;
+	private final UsbEventLoop eventLoop;
+
+	// heap buffers written asynchronously are staged through this buffer,
+	// which is taken while a transfer is in flight
+	private final AtomicReference<ByteBuffer> asyncWriteBuffer;
 
 	private volatile DeviceHandle handle;
 
 	public UsbDeviceHandle(DeviceHandle handle) {
+		this(handle, null);
+	}
+
+	UsbDeviceHandle(DeviceHandle handle, UsbEventLoop eventLoop) {
 
 		this.claimedInterfaceIdSet = new BitSet();
 		this.kernelDetachedSet = new BitSet();
+		this.eventLoop = eventLoop;
+		this.asyncWriteBuffer = new AtomicReference<ByteBuffer>();
 
 		this.handle = handle;
 	}
@@ -156,15 +203,51 @@ public class UsbDeviceHandle {
 	}
 
 	public void bulkWrite(byte endpointId, byte[] data, int timeoutMillis) throws UsbException {
+		bulkWrite(endpointId, ByteBuffer.wrap(data), timeoutMillis);
+	}
+
+	/**
+	 * Writes the remaining bytes of the given buffer in bulk mode. The position
+	 * of the buffer is advanced by the number of transferred bytes, also if
+	 * the transfer fails after a partial write. Direct buffers are transferred
+	 * in place, heap buffers are staged through a pooled direct buffer of the
+	 * calling thread.
+	 * 
+	 * @param endpointId
+	 *            the endpoint id.
+	 * @param data
+	 *            the data to be written.
+	 * @param timeoutMillis
+	 *            the timeout of a single transfer in milliseconds.
+	 * @throws UsbException
+	 *             if the data cannot be written.
+	 */
+	public void bulkWrite(byte endpointId, ByteBuffer data, int timeoutMillis) throws UsbException {
 
 		dumpBuffer("Write", data);
 
 		// TODO fix timeout handling
-		IntBuffer lengthBuffer = IntBuffer.allocate(1);
-		for (int offset = 0; offset < data.length; offset += lengthBuffer.get(0)) {
-			ByteBuffer buffer = ByteBuffer.allocateDirect(data.length - offset);
-			buffer.put(data, offset, data.length - offset);
+		IntBuffer lengthBuffer = LENGTH_BUFFER.get();
+		while (data.hasRemaining()) {
+			ByteBuffer buffer;
+			if (data.isDirect()) {
+				buffer = data.slice();
+			} else {
+				buffer = getTransferBuffer(data.remaining());
+				int length = Math.min(buffer.capacity(), data.remaining());
+				ByteBuffer source = data.duplicate();
+				source.limit(source.position() + length);
+				buffer.clear();
+				buffer.put(source);
+				buffer.flip();
+				if (length < buffer.capacity()) {
+					buffer = buffer.slice();
+				}
+			}
+
+			lengthBuffer.put(0, 0);
 			int result = LibUsb.bulkTransfer(getHandle(), endpointId, buffer, lengthBuffer, timeoutMillis);
+			data.position(data.position() + lengthBuffer.get(0));
 			if (result != LibUsb.SUCCESS) {
 				throw new UsbException("Cannot write data in bulk mode.", result);
 			}
@@ -173,25 +256,318 @@ public class UsbDeviceHandle {
 
 	public byte[] bulkRead(byte endpointId, int timeoutMillis) throws UsbException {
 
-		IntBuffer lengthBuffer = IntBuffer.allocate(1);
-		ByteBuffer buffer = ByteBuffer.allocateDirect(64);
+		ByteBuffer buffer = STATUS_BUFFER.get();
+		buffer.clear();
+		bulkRead(endpointId, buffer, timeoutMillis);
+		buffer.flip();
+		byte[] data = new byte[buffer.remaining()];
+		buffer.get(data);
+		return data;
+	}
+
+	/**
+	 * Reads data in bulk mode into the remaining space of the given buffer and
+	 * advances its position by the number of received bytes. Heap buffers are
+	 * filled through a pooled direct buffer of the calling thread.
+	 * 
+	 * @param endpointId
+	 *            the endpoint id.
+	 * @param data
+	 *            the buffer receiving the data.
+	 * @param timeoutMillis
+	 *            the timeout in milliseconds.
+	 * @return the number of received bytes.
+	 * @throws UsbException
+	 *             if the data cannot be read.
+	 */
+	public int bulkRead(byte endpointId, ByteBuffer data, int timeoutMillis) throws UsbException {
+
+		int start = data.position();
+		ByteBuffer buffer;
+		if (data.isDirect()) {
+			buffer = data.slice();
+		} else {
+			buffer = getTransferBuffer(data.remaining());
+			buffer.clear();
+			buffer.limit(Math.min(buffer.capacity(), data.remaining()));
+			buffer = buffer.slice();
+		}
+
+		IntBuffer lengthBuffer = LENGTH_BUFFER.get();
+		lengthBuffer.put(0, 0);
 		int result = LibUsb.bulkTransfer(getHandle(), endpointId, buffer, lengthBuffer, timeoutMillis);
 		if (result != LibUsb.SUCCESS) {
 			throw new UsbException("Cannot read data in bulk mode.", result);
 		}
-		byte[] data = new byte[lengthBuffer.get(0)];
-		buffer.get(data, 0, data.length);
+		int length = lengthBuffer.get(0);
+		if (data.isDirect()) {
+			data.position(data.position() + length);
+		} else {
+			buffer.limit(length);
+			data.put(buffer);
+		}
+
+		if (DUMP_BUFFERS) {
+			ByteBuffer received = data.duplicate();
+			received.limit(start + length);
+			received.position(start);
+			dumpBuffer("Read", received);
+		}
 
-		dumpBuffer("Read", data);
+		return length;
+	}
 
-		return data;
+	/**
+	 * Checks whether asynchronous transfers can be submitted. They need the
+	 * event handling thread of the {@link Usb} instance which opened the
+	 * device.
+	 * 
+	 * @return <code>true</code> if asynchronous transfers are available.
+	 */
+	public boolean isAsyncTransferAvailable() {
+		return (getHandle() != null) && (eventLoop != null) && eventLoop.isAlive();
 	}
 
-	private static void dumpBuffer(String prefix, byte[] buffer) {
+	/**
+	 * Submits an asynchronous bulk write of the remaining bytes of the given
+	 * buffer. Heap buffers are copied into a pooled direct buffer of the
+	 * device, direct buffers are transferred in place and must not be
+	 * modified until the transfer has completed. On completion the position
+	 * of the buffer is advanced by the number of transferred bytes.
+	 * Cancelling the future cancels the transfer.
+	 * 
+	 * @param endpointId
+	 *            the endpoint id.
+	 * @param data
+	 *            the data to be written.
+	 * @param timeoutMillis
+	 *            the timeout in milliseconds.
+	 * @return the future number of transferred bytes; it completes
+	 *         exceptionally with an {@link UsbException} if the transfer
+	 *         fails.
+	 */
+	public CompletableFuture<Integer> bulkWriteAsync(byte endpointId, final ByteBuffer data, int timeoutMillis) {
+
+		dumpBuffer("Write", data);
+
+		ByteBuffer buffer;
+		final ByteBuffer stagingBuffer;
+		if (data.isDirect()) {
+			buffer = data.slice();
+			stagingBuffer = null;
+		} else {
+			stagingBuffer = takeAsyncWriteBuffer(data.remaining());
+			stagingBuffer.clear();
+			stagingBuffer.put(data.duplicate());
+			stagingBuffer.flip();
+			buffer = stagingBuffer.slice();
+		}
+
+		final CompletableFuture<Integer> future = new CompletableFuture<Integer>();
+		boolean submitted = submitTransfer(endpointId, buffer, timeoutMillis, new TransferCallback() {
+
+			@Override
+			public void processTransfer(Transfer transfer) {
+
+				int status = transfer.status();
+				int length = transfer.actualLength();
+				LibUsb.freeTransfer(transfer);
+				releaseAsyncWriteBuffer(stagingBuffer);
+
+				data.position(data.position() + length);
+				if (status == LibUsb.TRANSFER_COMPLETED) {
+					future.complete(length);
+				} else {
+					future.completeExceptionally(
+							new UsbException("Cannot write data in bulk mode.", getTransferErrorCode(status)));
+				}
+			}
+		}, future);
+		if (!submitted) {
+			releaseAsyncWriteBuffer(stagingBuffer);
+		}
+		return future;
+	}
+
+	private ByteBuffer takeAsyncWriteBuffer(int requiredCapacity) {
+
+		ByteBuffer buffer = asyncWriteBuffer.getAndSet(null);
+		if ((buffer == null) || (buffer.capacity() < requiredCapacity)) {
+			int capacity = INITIAL_POOLED_BUFFER_SIZE;
+			while (capacity < requiredCapacity) {
+				capacity *= 2;
+			}
+			buffer = ByteBuffer.allocateDirect(capacity);
+		}
+		return buffer;
+	}
+
+	private void releaseAsyncWriteBuffer(ByteBuffer buffer) {
+
+		if ((buffer != null) && (buffer.capacity() <= MAX_POOLED_BUFFER_SIZE)) {
+			asyncWriteBuffer.set(buffer);
+		}
+	}
+
+	/**
+	 * Submits an asynchronous bulk read of at most the given number of bytes.
+	 * 
+	 * @param endpointId
+	 *            the endpoint id.
+	 * @param maxLength
+	 *            the maximum number of bytes to be read.
+	 * @param timeoutMillis
+	 *            the timeout in milliseconds.
+	 * @return the future buffer containing the received bytes between its
+	 *         position and limit; it completes exceptionally with an
+	 *         {@link UsbException} if the transfer fails. Cancelling the future
+	 *         cancels the transfer.
+	 */
+	public CompletableFuture<ByteBuffer> bulkReadAsync(byte endpointId, int maxLength, int timeoutMillis) {
+
+		final ByteBuffer buffer = ByteBuffer.allocateDirect(maxLength);
+		final CompletableFuture<ByteBuffer> future = new CompletableFuture<ByteBuffer>();
+		submitTransfer(endpointId, buffer, timeoutMillis, new TransferCallback() {
+
+			@Override
+			public void processTransfer(Transfer transfer) {
+
+				int status = transfer.status();
+				int length = transfer.actualLength();
+				LibUsb.freeTransfer(transfer);
+
+				if (status == LibUsb.TRANSFER_COMPLETED) {
+					buffer.limit(length);
+					dumpBuffer("Read", buffer);
+					future.complete(buffer);
+				} else {
+					future.completeExceptionally(
+							new UsbException("Cannot read data in bulk mode.", getTransferErrorCode(status)));
+				}
+			}
+		}, future);
+		return future;
+	}
+
+	/**
+	 * Submits a transfer. If it cannot be submitted, the future is completed
+	 * exceptionally and the callback is never called. Otherwise cancelling the
+	 * future cancels the transfer, the callback is still called once libusb
+	 * has given up the transfer.
+	 * 
+	 * @return <code>true</code> if the transfer has been submitted.
+	 */
+	private boolean submitTransfer(byte endpointId, ByteBuffer buffer, int timeoutMillis, TransferCallback callback,
+			CompletableFuture<?> future) {
+
+		DeviceHandle handle = getHandle();
+		if (handle == null) {
+			future.completeExceptionally(new UsbException("Device already closed.", 0));
+			return false;
+		}
+		if ((eventLoop == null) || !eventLoop.isAlive()) {
+			future.completeExceptionally(
+					new UsbException("Asynchronous transfers are not available.", LibUsb.ERROR_NOT_SUPPORTED));
+			return false;
+		}
+
+		Transfer transfer = LibUsb.allocTransfer();
+		if (transfer == null) {
+			future.completeExceptionally(new UsbException("Cannot allocate USB transfer.", LibUsb.ERROR_NO_MEM));
+			return false;
+		}
+		final CancellableTransferCallback cancellableCallback = new CancellableTransferCallback(transfer, callback);
+		LibUsb.fillBulkTransfer(transfer, handle, endpointId, buffer, cancellableCallback, null, timeoutMillis);
+		int result = LibUsb.submitTransfer(transfer);
+		if (result != LibUsb.SUCCESS) {
+			LibUsb.freeTransfer(transfer);
+			future.completeExceptionally(new UsbException("Cannot submit USB transfer.", result));
+			return false;
+		}
+		future.whenComplete((value, exception) -> {
+			if (future.isCancelled()) {
+				cancellableCallback.cancel();
+			}
+		});
+		return true;
+	}
+
+	/**
+	 * Forwards the completion of a transfer and cancels the transfer on
+	 * request, unless the callback has already been called. The callback frees
+	 * the transfer, so it must not be cancelled afterwards.
+	 */
+	private static final class CancellableTransferCallback implements TransferCallback {
+
+		private final Transfer transfer;
+		private final TransferCallback callback;
+
+		private boolean processed;
+
+		CancellableTransferCallback(Transfer transfer, TransferCallback callback) {
+
+			this.transfer = transfer;
+			this.callback = callback;
+		}
+
+		@Override
+		public void processTransfer(Transfer transfer) {
+
+			synchronized (this) {
+				processed = true;
+			}
+			callback.processTransfer(transfer);
+		}
+
+		synchronized void cancel() {
+
+			if (!processed) {
+				LibUsb.cancelTransfer(transfer);
+			}
+		}
+	}
+
+	private static int getTransferErrorCode(int transferStatus) {
+
+		switch (transferStatus) {
+		case LibUsb.TRANSFER_TIMED_OUT:
+			return LibUsb.ERROR_TIMEOUT;
+		case LibUsb.TRANSFER_CANCELLED:
+			return LibUsb.ERROR_INTERRUPTED;
+		case LibUsb.TRANSFER_STALL:
+			return LibUsb.ERROR_PIPE;
+		case LibUsb.TRANSFER_NO_DEVICE:
+			return LibUsb.ERROR_NO_DEVICE;
+		case LibUsb.TRANSFER_OVERFLOW:
+			return LibUsb.ERROR_OVERFLOW;
+		default:
+			return LibUsb.ERROR_IO;
+		}
+	}
+
+	private static ByteBuffer getTransferBuffer(int requiredCapacity) {
+
+		ByteBuffer buffer = TRANSFER_BUFFER.get();
+		if ((buffer.capacity() < requiredCapacity) && (buffer.capacity() < MAX_POOLED_BUFFER_SIZE)) {
+			int capacity = buffer.capacity();
+			while ((capacity < requiredCapacity) && (capacity < MAX_POOLED_BUFFER_SIZE)) {
+				capacity *= 2;
+			}
+			buffer = ByteBuffer.allocateDirect(capacity);
+			TRANSFER_BUFFER.set(buffer);
+		}
+		return buffer;
+	}
+
+	private static void dumpBuffer(String prefix, ByteBuffer buffer) {
+
+		if (!DUMP_BUFFERS) {
+			return;
+		}
 
-		System.out.println(prefix + " (" + buffer.length + "): ");
-		for (byte b : buffer) {
-			System.out.print(String.format("%02x", b & 0xFF));
+		System.out.println(prefix + " (" + buffer.remaining() + "): ");
+		for (int i = buffer.position(); i < buffer.limit(); ++i) {
+			System.out.print(String.format("%02x", buffer.get(i) & 0xFF));
 		}
 		System.out.println();
 	}
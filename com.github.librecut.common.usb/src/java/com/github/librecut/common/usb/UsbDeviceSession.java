@@ -0,0 +1,120 @@
+/**
+ * Copyright (C) 2016 Gerhard Mitzner.
+ * 
+ * This file is part of LibreCut.
+ * 
+ * LibreCut is free software: you can redistribute it and/or modify it under the
+ * terms of the GNU Lesser General Public License as published by the Free
+ * Software Foundation, either version 3 of the License, or (at your option) any
+ * later version.
+ * 
+ * LibreCut is distributed in the hope that it will be useful, but WITHOUT ANY
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR
+ * A PARTICULAR PURPOSE. See the GNU Lesser General Public License for more
+ * details.
+ * 
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with LibreCut. If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.github.librecut.common.usb;
+
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * A long-lived, reference-counted connection to a single USB device. The
+ * device is opened and its interface is claimed on first use and kept that way
+ * until the last reference is closed. After a communication error the session
+ * can be invalidated, which makes the next {@link #getHandle()} call reconnect
+ * to the device.
+ * <p>
+ * Sessions are obtained from {@link Usb#openSession(UsbDeviceDescriptor, int)}
+ * and must be closed by every party which has opened them.
+ */
+public class UsbDeviceSession {
+
+	private final Usb usb;
+	private final UsbDeviceDescriptor descriptor;
+	private final int interfaceId;
+	private final Lock lock;
+
+	private int referenceCount;
+	private UsbDeviceHandle handle;
+
+	UsbDeviceSession(Usb usb, UsbDeviceDescriptor descriptor, int interfaceId) {
+
+		this.usb = usb;
+		this.descriptor = descriptor;
+		this.interfaceId = interfaceId;
+		this.lock = new ReentrantLock();
+	}
+
+	public UsbDeviceDescriptor getDescriptor() {
+		return descriptor;
+	}
+
+	/**
+	 * Returns the lock which serializes the communication with the device.
+	 * 
+	 * @return the lock of this session.
+	 */
+	public Lock getLock() {
+		return lock;
+	}
+
+	/**
+	 * Returns the open device handle with the claimed interface. The device
+	 * gets (re)opened if necessary.
+	 * 
+	 * @return the device handle or <code>null</code> if the device is not
+	 *         connected.
+	 * @throws UsbException
+	 *             if the device cannot be opened or its interface cannot be
+	 *             claimed.
+	 */
+	public synchronized UsbDeviceHandle getHandle() throws UsbException {
+
+		if (handle == null) {
+			UsbDeviceHandle newHandle = usb.openDevice(descriptor);
+			if (newHandle == null) {
+				return null;
+			}
+			try {
+				newHandle.claimInterface(interfaceId);
+			} catch (UsbException e) {
+				newHandle.close();
+				throw e;
+			}
+			handle = newHandle;
+		}
+		return handle;
+	}
+
+	/**
+	 * Closes the current device handle, e.g. after a communication error. The
+	 * next call of {@link #getHandle()} reconnects to the device.
+	 */
+	public synchronized void invalidate() {
+
+		if (handle != null) {
+			handle.close();
+			handle = null;
+		}
+	}
+
+	/**
+	 * Releases one reference to this session. The device is closed when the
+	 * last reference is released.
+	 */
+	public void close() {
+		usb.releaseSession(this);
+	}
+
+	int retain() {
+		return ++referenceCount;
+	}
+
+	int release() {
+		return --referenceCount;
+	}
+}
@@ -0,0 +1,86 @@
+/**
+ * Copyright (C) 2016 Gerhard Mitzner.
+ * 
+ * This file is part of LibreCut.
+ * 
+ * LibreCut is free software: you can redistribute it and/or modify it under the
+ * terms of the GNU Lesser General Public License as published by the Free
+ * Software Foundation, either version 3 of the License, or (at your option) any
+ * later version.
+ * 
+ * LibreCut is distributed in the hope that it will be useful, but WITHOUT ANY
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR
+ * A PARTICULAR PURPOSE. See the GNU Lesser General Public License for more
+ * details.
+ * 
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with LibreCut. If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.github.librecut.common.usb;
+
+import org.eclipse.core.runtime.IStatus;
+import org.eclipse.core.runtime.Platform;
+import org.eclipse.core.runtime.Status;
+import org.osgi.framework.Bundle;
+import org.osgi.framework.FrameworkUtil;
+import org.usb4java.Context;
+import org.usb4java.LibUsb;
+
+/**
+ * Dedicated thread which handles the libusb events of a context. It drives the
+ * completion of asynchronous transfers and the delivery of hotplug
+ * notifications.
+ */
+class UsbEventLoop extends Thread {
+
+	private static final long EVENT_TIMEOUT_MICROS = 250000;
+	private static final long ERROR_RETRY_DELAY_MILLIS = 100;
+
+	private final Context context;
+
+	private volatile boolean aborted;
+
+	public UsbEventLoop(Context context) {
+		super("LibUsb event handling");
+
+		this.context = context;
+		setDaemon(true);
+	}
+
+	@Override
+	public void run() {
+
+		while (!aborted) {
+			int result = LibUsb.handleEventsTimeout(context, EVENT_TIMEOUT_MICROS);
+			if ((result != LibUsb.SUCCESS) && (result != LibUsb.ERROR_INTERRUPTED)) {
+				// pending and future transfers depend on this thread, so event
+				// handling is resumed after a short delay instead of stopping
+				logError(result);
+				try {
+					Thread.sleep(ERROR_RETRY_DELAY_MILLIS);
+				} catch (InterruptedException e) {
+					// only abort() stops the loop
+				}
+			}
+		}
+	}
+
+	private static void logError(int result) {
+
+		Bundle bundle = FrameworkUtil.getBundle(UsbEventLoop.class);
+		if (bundle != null) {
+			Platform.getLog(bundle).log(new Status(IStatus.WARNING, bundle.getSymbolicName(),
+					String.format("Handling of USB events has failed (error %d), retrying.", result)));
+		}
+	}
+
+	public void abort() {
+
+		aborted = true;
+		try {
+			join();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+	}
+}
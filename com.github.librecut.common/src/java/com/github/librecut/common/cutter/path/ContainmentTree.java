@@ -0,0 +1,299 @@
+/**
+ * Copyright (C) 2016 Gerhard Mitzner.
+ * 
+ * This file is part of LibreCut.
+ * 
+ * LibreCut is free software: you can redistribute it and/or modify it under the
+ * terms of the GNU Lesser General Public License as published by the Free
+ * Software Foundation, either version 3 of the License, or (at your option) any
+ * later version.
+ * 
+ * LibreCut is distributed in the hope that it will be useful, but WITHOUT ANY
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR
+ * A PARTICULAR PURPOSE. See the GNU Lesser General Public License for more
+ * details.
+ * 
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with LibreCut. If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.github.librecut.common.cutter.path;
+
+import java.util.Arrays;
+
+import org.eclipse.core.runtime.IProgressMonitor;
+import org.eclipse.core.runtime.SubMonitor;
+
+/**
+ * Nesting structure of a set of paths. A path is contained in a closed path if
+ * its bounding box lies within the bounding box of the closed path and its
+ * first vertex lies inside the polygon of the closed path. The parent of a
+ * path is its innermost container.
+ * <p>
+ * The height of a path is zero if it contains no other path and exceeds the
+ * height of every path it contains otherwise, so cutting the paths in
+ * ascending order of their heights always cuts inner contours before the
+ * contours surrounding them.
+ * </p>
+ */
+final class ContainmentTree {
+
+	private static final int CANCEL_CHECK_INTERVAL = 1024;
+
+	private final int[] parents;
+	private final int[] heights;
+	private final int maxHeight;
+
+	private ContainmentTree(int[] parents, int[] heights, int maxHeight) {
+
+		this.parents = parents;
+		this.heights = heights;
+		this.maxHeight = maxHeight;
+	}
+
+	public int getParent(int pathIndex) {
+		return parents[pathIndex];
+	}
+
+	public int getHeight(int pathIndex) {
+		return heights[pathIndex];
+	}
+
+	public int getMaxHeight() {
+		return maxHeight;
+	}
+
+	public static ContainmentTree build(CutPath[] paths, IProgressMonitor monitor) throws InterruptedException {
+
+		SubMonitor subMonitor = SubMonitor.convert(monitor, paths.length);
+
+		int n = paths.length;
+		double[] minX = new double[n];
+		double[] minY = new double[n];
+		double[] maxX = new double[n];
+		double[] maxY = new double[n];
+		for (int i = 0; i < n; ++i) {
+			CutPath path = paths[i];
+			minX[i] = Double.MAX_VALUE;
+			minY[i] = Double.MAX_VALUE;
+			maxX[i] = -Double.MAX_VALUE;
+			maxY[i] = -Double.MAX_VALUE;
+			for (int vertex = 0; vertex < path.getPointCount(); ++vertex) {
+				minX[i] = Math.min(minX[i], path.getX(vertex));
+				minY[i] = Math.min(minY[i], path.getY(vertex));
+				maxX[i] = Math.max(maxX[i], path.getX(vertex));
+				maxY[i] = Math.max(maxY[i], path.getY(vertex));
+			}
+		}
+
+		BoundsIndex index = new BoundsIndex(paths, minX, minY, maxX, maxY);
+
+		int[] parents = new int[n];
+		for (int i = 0; i < n; ++i) {
+			double x = paths[i].getX(0);
+			double y = paths[i].getY(0);
+			double area = (maxX[i] - minX[i]) * (maxY[i] - minY[i]);
+			int parent = -1;
+			double parentArea = Double.MAX_VALUE;
+			int cell = index.findCell(x, y);
+			int candidateEnd = (cell < 0) ? 0 : index.getCellEnd(cell);
+			for (int k = (cell < 0) ? 0 : index.getCellStart(cell); k < candidateEnd; ++k) {
+				int candidate = index.getPath(k);
+				if ((candidate == i) || (minX[candidate] > minX[i]) || (minY[candidate] > minY[i])
+						|| (maxX[candidate] < maxX[i]) || (maxY[candidate] < maxY[i])) {
+					continue;
+				}
+				double candidateArea = (maxX[candidate] - minX[candidate]) * (maxY[candidate] - minY[candidate]);
+				if ((candidateArea <= area) || (candidateArea >= parentArea)) {
+					// identical bounds do not establish a nesting
+					continue;
+				}
+				if (contains(paths[candidate], x, y)) {
+					parent = candidate;
+					parentArea = candidateArea;
+				}
+			}
+			parents[i] = parent;
+
+			if ((i % CANCEL_CHECK_INTERVAL) == 0) {
+				if (subMonitor.isCanceled()) {
+					throw new InterruptedException();
+				}
+				subMonitor.worked(Math.min(CANCEL_CHECK_INTERVAL, n - i));
+			}
+		}
+
+		// propagate the heights from the innermost paths outwards; the parent
+		// relation is acyclic since every parent has a strictly larger
+		// bounding box than its children
+		int[] heights = new int[n];
+		int[] pendingChildren = new int[n];
+		for (int i = 0; i < n; ++i) {
+			if (parents[i] >= 0) {
+				++pendingChildren[parents[i]];
+			}
+		}
+		int[] queue = new int[n];
+		int queueEnd = 0;
+		for (int i = 0; i < n; ++i) {
+			if (pendingChildren[i] == 0) {
+				queue[queueEnd++] = i;
+			}
+		}
+		int maxHeight = 0;
+		for (int queueStart = 0; queueStart < queueEnd; ++queueStart) {
+			int i = queue[queueStart];
+			maxHeight = Math.max(maxHeight, heights[i]);
+			int parent = parents[i];
+			if (parent >= 0) {
+				heights[parent] = Math.max(heights[parent], heights[i] + 1);
+				if (--pendingChildren[parent] == 0) {
+					queue[queueEnd++] = parent;
+				}
+			}
+		}
+
+		return new ContainmentTree(parents, heights, maxHeight);
+	}
+
+	/**
+	 * Even-odd test of the given point against the polygon of a closed path.
+	 */
+	private static boolean contains(CutPath path, double x, double y) {
+
+		boolean inside = false;
+		int pointCount = path.getPointCount();
+		double previousX = path.getX(pointCount - 1);
+		double previousY = path.getY(pointCount - 1);
+		for (int vertex = 0; vertex < pointCount; ++vertex) {
+			double currentX = path.getX(vertex);
+			double currentY = path.getY(vertex);
+			if (((currentY > y) != (previousY > y))
+					&& (x < (previousX - currentX) * (y - currentY) / (previousY - currentY) + currentX)) {
+				inside = !inside;
+			}
+			previousX = currentX;
+			previousY = currentY;
+		}
+		return inside;
+	}
+
+	/**
+	 * Uniform grid in which every closed path is registered in all cells
+	 * covered by its bounding box, so the possible containers of a point are
+	 * the paths registered in its cell.
+	 */
+	private static class BoundsIndex {
+
+		private double originX;
+		private double originY;
+		private double limitX;
+		private double limitY;
+		private double cellSize;
+		private int columns;
+		private int rows;
+		private int[] cellStart;
+		private int[] cellPaths;
+
+		public BoundsIndex(CutPath[] paths, double[] minX, double[] minY, double[] maxX, double[] maxY) {
+
+			int closedCount = 0;
+			double boundsMinX = Double.MAX_VALUE;
+			double boundsMinY = Double.MAX_VALUE;
+			double boundsMaxX = -Double.MAX_VALUE;
+			double boundsMaxY = -Double.MAX_VALUE;
+			for (int i = 0; i < paths.length; ++i) {
+				if (paths[i].isClosed()) {
+					++closedCount;
+					boundsMinX = Math.min(boundsMinX, minX[i]);
+					boundsMinY = Math.min(boundsMinY, minY[i]);
+					boundsMaxX = Math.max(boundsMaxX, maxX[i]);
+					boundsMaxY = Math.max(boundsMaxY, maxY[i]);
+				}
+			}
+			if (closedCount == 0) {
+				return;
+			}
+
+			originX = boundsMinX;
+			originY = boundsMinY;
+			limitX = boundsMaxX;
+			limitY = boundsMaxY;
+			double width = boundsMaxX - boundsMinX;
+			double height = boundsMaxY - boundsMinY;
+			cellSize = Math.sqrt(width * height / closedCount);
+			if (!(cellSize > 0.0d)) {
+				cellSize = Math.max(Math.max(width, height) / closedCount, 1e-9);
+			}
+			columns = (int) Math.min(width / cellSize + 1.0d, closedCount + 1.0d);
+			rows = (int) Math.min(height / cellSize + 1.0d, closedCount + 1.0d);
+			while ((long) columns * rows > 4L * closedCount + 16) {
+				cellSize *= 2.0d;
+				columns = (int) Math.min(width / cellSize + 1.0d, closedCount + 1.0d);
+				rows = (int) Math.min(height / cellSize + 1.0d, closedCount + 1.0d);
+			}
+
+			int cellCount = columns * rows;
+			int[] cellCounts = new int[cellCount];
+			for (int pass = 0; pass < 2; ++pass) {
+				if (pass == 1) {
+					cellStart = new int[cellCount + 1];
+					for (int cell = 0; cell < cellCount; ++cell) {
+						cellStart[cell + 1] = cellStart[cell] + cellCounts[cell];
+					}
+					cellPaths = new int[cellStart[cellCount]];
+					Arrays.fill(cellCounts, 0);
+				}
+				for (int i = 0; i < paths.length; ++i) {
+					if (!paths[i].isClosed()) {
+						continue;
+					}
+					int minColumn = getColumn(minX[i]);
+					int maxColumn = getColumn(maxX[i]);
+					int minRow = getRow(minY[i]);
+					int maxRow = getRow(maxY[i]);
+					for (int row = minRow; row <= maxRow; ++row) {
+						for (int column = minColumn; column <= maxColumn; ++column) {
+							int cell = row * columns + column;
+							if (pass == 1) {
+								cellPaths[cellStart[cell] + cellCounts[cell]] = i;
+							}
+							++cellCounts[cell];
+						}
+					}
+				}
+			}
+		}
+
+		/**
+		 * @return the cell containing the given point or -1 if the point lies
+		 *         outside of all closed paths.
+		 */
+		public int findCell(double x, double y) {
+
+			if ((columns == 0) || (x < originX) || (y < originY) || (x > limitX) || (y > limitY)) {
+				return -1;
+			}
+			return getRow(y) * columns + getColumn(x);
+		}
+
+		public int getCellStart(int cell) {
+			return cellStart[cell];
+		}
+
+		public int getCellEnd(int cell) {
+			return cellStart[cell + 1];
+		}
+
+		public int getPath(int k) {
+			return cellPaths[k];
+		}
+
+		private int getColumn(double x) {
+			return Math.max(0, Math.min(columns - 1, (int) ((x - originX) / cellSize)));
+		}
+
+		private int getRow(double y) {
+			return Math.max(0, Math.min(rows - 1, (int) ((y - originY) / cellSize)));
+		}
+	}
+}
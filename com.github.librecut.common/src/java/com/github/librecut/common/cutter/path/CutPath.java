@@ -0,0 +1,184 @@
+/**
+ * Copyright (C) 2016 Gerhard Mitzner.
+ * 
+ * This file is part of LibreCut.
+ * 
+ * LibreCut is free software: you can redistribute it and/or modify it under the
+ * terms of the GNU Lesser General Public License as published by the Free
+ * Software Foundation, either version 3 of the License, or (at your option) any
+ * later version.
+ * 
+ * LibreCut is distributed in the hope that it will be useful, but WITHOUT ANY
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR
+ * A PARTICULAR PURPOSE. See the GNU Lesser General Public License for more
+ * details.
+ * 
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with LibreCut. If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.github.librecut.common.cutter.path;
+
+import com.github.librecut.api.design.model.IPolyline;
+
+/**
+ * A polyline together with the point at which the cutter enters it and the
+ * direction in which it is cut. Open paths can be entered at either end,
+ * closed paths at any of their vertices.
+ */
+final class CutPath {
+
+	private static final double CLOSING_TOLERANCE = 1e-6;
+
+	private final IPolyline polyline;
+	private final double[] coordinates;
+	private final int pointCount;
+	private final boolean closed;
+
+	private int entryIndex;
+	private boolean reversed;
+
+	private CutPath(IPolyline polyline, double[] coordinates, int pointCount) {
+
+		this.polyline = polyline;
+		this.coordinates = coordinates;
+		this.pointCount = pointCount;
+		this.closed = (pointCount > 2)
+				&& (Math.abs(coordinates[0] - coordinates[2 * pointCount - 2]) <= CLOSING_TOLERANCE)
+				&& (Math.abs(coordinates[1] - coordinates[2 * pointCount - 1]) <= CLOSING_TOLERANCE);
+	}
+
+	/**
+	 * @return the path or <code>null</code> if the polyline has no points.
+	 */
+	public static CutPath create(IPolyline polyline) {
+
+		int pointCount = polyline.getPointCount();
+		if (pointCount == 0) {
+			return null;
+		}
+		return new CutPath(polyline, polyline.getCoordinates(null), pointCount);
+	}
+
+	public IPolyline getPolyline() {
+		return polyline;
+	}
+
+	public int getPointCount() {
+		return pointCount;
+	}
+
+	public boolean isClosed() {
+		return closed;
+	}
+
+	/**
+	 * Returns the number of vertices at which the path can be entered.
+	 */
+	public int getEntryPointCount() {
+
+		if (closed) {
+			// the last vertex duplicates the first one
+			return pointCount - 1;
+		}
+		return (pointCount == 1) ? 1 : 2;
+	}
+
+	/**
+	 * Returns the vertex index of the given entry point.
+	 */
+	public int getEntryPointVertex(int entryPoint) {
+
+		if (closed || (entryPoint == 0)) {
+			return entryPoint;
+		}
+		return pointCount - 1;
+	}
+
+	public double getX(int vertex) {
+		return coordinates[2 * vertex];
+	}
+
+	public double getY(int vertex) {
+		return coordinates[2 * vertex + 1];
+	}
+
+	/**
+	 * Lets the cutter enter the path at the given vertex, which must be one of
+	 * the entry point vertices.
+	 */
+	public void setEntryVertex(int vertex) {
+
+		if (closed) {
+			entryIndex = vertex;
+		} else {
+			reversed = (vertex != 0);
+		}
+	}
+
+	/**
+	 * Swaps entry and exit of the path. Closed paths keep their entry vertex
+	 * since they are left where they have been entered.
+	 */
+	public void reverse() {
+
+		if (!closed) {
+			reversed = !reversed;
+		}
+	}
+
+	public double getEntryX() {
+		return getX(getEntryVertex());
+	}
+
+	public double getEntryY() {
+		return getY(getEntryVertex());
+	}
+
+	public double getExitX() {
+		return getX(getExitVertex());
+	}
+
+	public double getExitY() {
+		return getY(getExitVertex());
+	}
+
+	private int getEntryVertex() {
+
+		if (closed) {
+			return entryIndex;
+		}
+		return reversed ? pointCount - 1 : 0;
+	}
+
+	private int getExitVertex() {
+
+		if (closed) {
+			return entryIndex;
+		}
+		return reversed ? 0 : pointCount - 1;
+	}
+
+	/**
+	 * Returns a polyline which is cut from the chosen entry point in the chosen
+	 * direction. If these match the original polyline, it is returned as is.
+	 */
+	public IPolyline toPolyline() {
+
+		if ((entryIndex == 0) && !reversed) {
+			return polyline;
+		}
+
+		double[] newCoordinates = new double[2 * pointCount];
+		if (closed) {
+			int length = 2 * (pointCount - 1 - entryIndex);
+			System.arraycopy(coordinates, 2 * entryIndex, newCoordinates, 0, length);
+			System.arraycopy(coordinates, 0, newCoordinates, length, 2 * (entryIndex + 1));
+		} else {
+			for (int i = 0; i < pointCount; ++i) {
+				newCoordinates[2 * i] = coordinates[2 * (pointCount - 1 - i)];
+				newCoordinates[2 * i + 1] = coordinates[2 * (pointCount - 1 - i) + 1];
+			}
+		}
+		return new DerivedPolyline(polyline, newCoordinates);
+	}
+}
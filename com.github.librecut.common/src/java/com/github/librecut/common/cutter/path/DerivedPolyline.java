@@ -0,0 +1,47 @@
+/**
+ * Copyright (C) 2016 Gerhard Mitzner.
+ * 
+ * This file is part of LibreCut.
+ * 
+ * LibreCut is free software: you can redistribute it and/or modify it under the
+ * terms of the GNU Lesser General Public License as published by the Free
+ * Software Foundation, either version 3 of the License, or (at your option) any
+ * later version.
+ * 
+ * LibreCut is distributed in the hope that it will be useful, but WITHOUT ANY
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR
+ * A PARTICULAR PURPOSE. See the GNU Lesser General Public License for more
+ * details.
+ * 
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with LibreCut. If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.github.librecut.common.cutter.path;
+
+import com.github.librecut.api.design.model.IPolyline;
+import com.github.librecut.common.design.model.PackedPolyline;
+
+/**
+ * Polyline with modified points which shares the enabled state of the polyline
+ * it has been derived from.
+ */
+final class DerivedPolyline extends PackedPolyline {
+
+	private final IPolyline polyline;
+
+	public DerivedPolyline(IPolyline polyline, double[] coordinates) {
+
+		super(coordinates, 0, coordinates.length / 2);
+		this.polyline = polyline;
+	}
+
+	@Override
+	public boolean isEnabled() {
+		return polyline.isEnabled();
+	}
+
+	@Override
+	public void setEnabled(boolean enabled) {
+		polyline.setEnabled(enabled);
+	}
+}
@@ -0,0 +1,252 @@
+/**
+ * Copyright (C) 2016 Gerhard Mitzner.
+ * 
+ * This file is part of LibreCut.
+ * 
+ * LibreCut is free software: you can redistribute it and/or modify it under the
+ * terms of the GNU Lesser General Public License as published by the Free
+ * Software Foundation, either version 3 of the License, or (at your option) any
+ * later version.
+ * 
+ * LibreCut is distributed in the hope that it will be useful, but WITHOUT ANY
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR
+ * A PARTICULAR PURPOSE. See the GNU Lesser General Public License for more
+ * details.
+ * 
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with LibreCut. If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.github.librecut.common.cutter.path;
+
+/**
+ * Uniform grid over the entry points of a set of paths which answers nearest
+ * neighbour queries. Paths are removed once they have been visited; the grid
+ * compacts itself when most of its entries are gone, so searches do not
+ * degrade while the set of remaining paths shrinks.
+ */
+final class EntryPointIndex {
+
+	private static final double ENTRIES_PER_CELL = 2.0d;
+
+	private final CutPath[] paths;
+	private final boolean[] removed;
+	private int livePathCount;
+
+	private int[] entryPath;
+	private int[] entryVertex;
+	private double[] entryX;
+	private double[] entryY;
+	private int[] entryCell;
+	private int[] pathEntryStart;
+
+	private int[] cellStart;
+	private int[] cellEntries;
+	private int[] cellLiveCount;
+
+	private double minX;
+	private double minY;
+	private double cellSize;
+	private int columns;
+	private int rows;
+
+	private int entryCount;
+	private int liveEntryCount;
+
+	public EntryPointIndex(CutPath[] paths) {
+
+		this.paths = paths;
+		this.removed = new boolean[paths.length];
+		this.livePathCount = paths.length;
+		build();
+	}
+
+	public boolean isEmpty() {
+		return livePathCount == 0;
+	}
+
+	/**
+	 * Removes the given path, so it is not returned by any further query.
+	 */
+	public void remove(int pathIndex) {
+
+		if (removed[pathIndex]) {
+			return;
+		}
+		removed[pathIndex] = true;
+		--livePathCount;
+		for (int entry = pathEntryStart[pathIndex]; entry < pathEntryStart[pathIndex + 1]; ++entry) {
+			--cellLiveCount[entryCell[entry]];
+			--liveEntryCount;
+		}
+		if ((livePathCount > 0) && (liveEntryCount < entryCount / 4)) {
+			build();
+		}
+	}
+
+	/**
+	 * Returns the entry closest to the given position, or -1 if all paths have
+	 * been removed. The path and vertex of the entry are available through
+	 * {@link #getPath(int)} and {@link #getVertex(int)}.
+	 */
+	public int findNearest(double x, double y) {
+
+		if (livePathCount == 0) {
+			return -1;
+		}
+
+		int column = clamp((int) Math.floor((x - minX) / cellSize), columns);
+		int row = clamp((int) Math.floor((y - minY) / cellSize), rows);
+		int maxRadius = Math.max(columns, rows);
+
+		int bestEntry = -1;
+		double bestDistance = Double.MAX_VALUE;
+		for (int radius = 0; radius <= maxRadius; ++radius) {
+			int minColumn = column - radius;
+			int maxColumn = column + radius;
+			int minRow = row - radius;
+			int maxRow = row + radius;
+			for (int r = Math.max(0, minRow); r <= Math.min(rows - 1, maxRow); ++r) {
+				boolean edgeRow = (r == minRow) || (r == maxRow);
+				int step = edgeRow ? 1 : (maxColumn - minColumn);
+				for (int c = minColumn; c <= maxColumn; c += Math.max(1, step)) {
+					if ((c < 0) || (c >= columns)) {
+						continue;
+					}
+					int cell = r * columns + c;
+					if (cellLiveCount[cell] == 0) {
+						continue;
+					}
+					for (int i = cellStart[cell]; i < cellStart[cell + 1]; ++i) {
+						int entry = cellEntries[i];
+						if (removed[entryPath[entry]]) {
+							continue;
+						}
+						double dx = entryX[entry] - x;
+						double dy = entryY[entry] - y;
+						double distance = dx * dx + dy * dy;
+						if (distance < bestDistance) {
+							bestDistance = distance;
+							bestEntry = entry;
+						}
+					}
+				}
+			}
+			// all cells beyond this ring are at least radius cells away
+			double ringDistance = radius * cellSize;
+			if ((bestEntry >= 0) && (bestDistance <= ringDistance * ringDistance)) {
+				break;
+			}
+		}
+		return bestEntry;
+	}
+
+	public int getPath(int entry) {
+		return entryPath[entry];
+	}
+
+	public int getVertex(int entry) {
+		return entryVertex[entry];
+	}
+
+	private void build() {
+
+		int count = 0;
+		for (int i = 0; i < paths.length; ++i) {
+			if (!removed[i]) {
+				count += paths[i].getEntryPointCount();
+			}
+		}
+
+		entryPath = new int[count];
+		entryVertex = new int[count];
+		entryX = new double[count];
+		entryY = new double[count];
+		entryCell = new int[count];
+		pathEntryStart = new int[paths.length + 1];
+
+		double maxX = -Double.MAX_VALUE;
+		double maxY = -Double.MAX_VALUE;
+		minX = Double.MAX_VALUE;
+		minY = Double.MAX_VALUE;
+
+		int entry = 0;
+		for (int i = 0; i < paths.length; ++i) {
+			pathEntryStart[i] = entry;
+			if (removed[i]) {
+				continue;
+			}
+			CutPath path = paths[i];
+			for (int entryPoint = 0; entryPoint < path.getEntryPointCount(); ++entryPoint) {
+				int vertex = path.getEntryPointVertex(entryPoint);
+				double x = path.getX(vertex);
+				double y = path.getY(vertex);
+				entryPath[entry] = i;
+				entryVertex[entry] = vertex;
+				entryX[entry] = x;
+				entryY[entry] = y;
+				minX = Math.min(minX, x);
+				minY = Math.min(minY, y);
+				maxX = Math.max(maxX, x);
+				maxY = Math.max(maxY, y);
+				++entry;
+			}
+		}
+		pathEntryStart[paths.length] = entry;
+
+		entryCount = count;
+		liveEntryCount = count;
+		if (count == 0) {
+			minX = 0.0d;
+			minY = 0.0d;
+			maxX = 0.0d;
+			maxY = 0.0d;
+		}
+
+		double width = maxX - minX;
+		double height = maxY - minY;
+		double cellArea = (width * height) * ENTRIES_PER_CELL / Math.max(1, count);
+		cellSize = Math.sqrt(cellArea);
+		if (!(cellSize > 0.0d)) {
+			// degenerate extent, a single row or column of cells is sufficient
+			cellSize = Math.max(Math.max(width, height) * ENTRIES_PER_CELL / Math.max(1, count), 1e-9);
+		}
+		columns = (int) Math.min(width / cellSize + 1.0d, count + 1.0d);
+		rows = (int) Math.min(height / cellSize + 1.0d, count + 1.0d);
+		// keep the number of cells linear in the number of entries
+		while ((long) columns * rows > 4L * count + 16) {
+			cellSize *= 2.0d;
+			columns = (int) Math.min(width / cellSize + 1.0d, count + 1.0d);
+			rows = (int) Math.min(height / cellSize + 1.0d, count + 1.0d);
+		}
+
+		int cellCount = columns * rows;
+		cellStart = new int[cellCount + 1];
+		cellLiveCount = new int[cellCount];
+		for (int i = 0; i < count; ++i) {
+			int cell = clamp((int) ((entryY[i] - minY) / cellSize), rows) * columns
+					+ clamp((int) ((entryX[i] - minX) / cellSize), columns);
+			entryCell[i] = cell;
+			++cellLiveCount[cell];
+		}
+		for (int cell = 0; cell < cellCount; ++cell) {
+			cellStart[cell + 1] = cellStart[cell] + cellLiveCount[cell];
+		}
+		int[] cellFill = new int[cellCount];
+		cellEntries = new int[count];
+		for (int i = 0; i < count; ++i) {
+			int cell = entryCell[i];
+			cellEntries[cellStart[cell] + cellFill[cell]++] = i;
+		}
+	}
+
+	private static int clamp(int value, int size) {
+
+		if (value < 0) {
+			return 0;
+		}
+		if (value >= size) {
+			return size - 1;
+		}
+		return value;
+	}
+}
@@ -0,0 +1,48 @@
+/**
+ * Copyright (C) 2016 Gerhard Mitzner.
+ * 
+ * This file is part of LibreCut.
+ * 
+ * LibreCut is free software: you can redistribute it and/or modify it under the
+ * terms of the GNU Lesser General Public License as published by the Free
+ * Software Foundation, either version 3 of the License, or (at your option) any
+ * later version.
+ * 
+ * LibreCut is distributed in the hope that it will be useful, but WITHOUT ANY
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR
+ * A PARTICULAR PURPOSE. See the GNU Lesser General Public License for more
+ * details.
+ * 
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with LibreCut. If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.github.librecut.common.cutter.path;
+
+import java.util.List;
+
+import org.eclipse.core.runtime.IProgressMonitor;
+
+import com.github.librecut.api.design.model.IPolyline;
+
+/**
+ * A stage which reorders the polylines of a pattern before they are sent to
+ * the cutter.
+ */
+public interface IPathOptimizer {
+
+	/**
+	 * Optimizes the cutting order of the given polylines. The returned
+	 * polylines may start at a different point or run in the opposite
+	 * direction than the given ones, but they describe the same cuts.
+	 * 
+	 * @param polylines
+	 *            the polylines in cutter coordinates.
+	 * @param monitor
+	 *            the progress monitor.
+	 * @return the result containing the reordered polylines.
+	 * @throws InterruptedException
+	 *             if the optimization has been canceled.
+	 */
+	PathOptimizationResult optimize(List<IPolyline> polylines, IProgressMonitor monitor)
+			throws InterruptedException;
+}
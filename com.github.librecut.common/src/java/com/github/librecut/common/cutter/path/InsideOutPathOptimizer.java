@@ -0,0 +1,73 @@
+/**
+ * Copyright (C) 2016 Gerhard Mitzner.
+ * 
+ * This file is part of LibreCut.
+ * 
+ * LibreCut is free software: you can redistribute it and/or modify it under the
+ * terms of the GNU Lesser General Public License as published by the Free
+ * Software Foundation, either version 3 of the License, or (at your option) any
+ * later version.
+ * 
+ * LibreCut is distributed in the hope that it will be useful, but WITHOUT ANY
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR
+ * A PARTICULAR PURPOSE. See the GNU Lesser General Public License for more
+ * details.
+ * 
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with LibreCut. If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.github.librecut.common.cutter.path;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.eclipse.core.runtime.IProgressMonitor;
+import org.eclipse.core.runtime.SubMonitor;
+
+/**
+ * Path optimizer which cuts nested contours from the inside out. Once an
+ * outer contour has been cut, the piece it encloses may shift on the mat, so
+ * every path is cut before all closed paths surrounding it. The paths of each
+ * nesting level are ordered to minimize the pen-up travel, continuing where
+ * the previous level has ended.
+ */
+public class InsideOutPathOptimizer extends TravelPathOptimizer {
+
+	public InsideOutPathOptimizer(long timeBudgetMillis) {
+		super(timeBudgetMillis);
+	}
+
+	@Override
+	CutPath[] createTour(CutPath[] paths, long deadline, IProgressMonitor monitor) throws InterruptedException {
+
+		SubMonitor subMonitor = SubMonitor.convert(monitor, 2);
+		ContainmentTree tree = ContainmentTree.build(paths, subMonitor.newChild(1));
+
+		int levelCount = tree.getMaxHeight() + 1;
+		List<List<CutPath>> levelList = new ArrayList<List<CutPath>>(levelCount);
+		for (int level = 0; level < levelCount; ++level) {
+			levelList.add(new ArrayList<CutPath>());
+		}
+		for (int i = 0; i < paths.length; ++i) {
+			levelList.get(tree.getHeight(i)).add(paths[i]);
+		}
+
+		SubMonitor levelMonitor = subMonitor.newChild(1).setWorkRemaining(paths.length);
+		CutPath[] tour = new CutPath[paths.length];
+		int tourLength = 0;
+		double x = 0.0d;
+		double y = 0.0d;
+		for (List<CutPath> level : levelList) {
+			CutPath[] levelPaths = level.toArray(new CutPath[level.size()]);
+			CutPath[] levelTour = orderPaths(levelPaths, x, y, deadline, levelMonitor.newChild(levelPaths.length));
+			System.arraycopy(levelTour, 0, tour, tourLength, levelTour.length);
+			tourLength += levelTour.length;
+			if (levelTour.length > 0) {
+				CutPath last = levelTour[levelTour.length - 1];
+				x = last.getExitX();
+				y = last.getExitY();
+			}
+		}
+		return tour;
+	}
+}
@@ -0,0 +1,75 @@
+/**
+ * Copyright (C) 2016 Gerhard Mitzner.
+ * 
+ * This file is part of LibreCut.
+ * 
+ * LibreCut is free software: you can redistribute it and/or modify it under the
+ * terms of the GNU Lesser General Public License as published by the Free
+ * Software Foundation, either version 3 of the License, or (at your option) any
+ * later version.
+ * 
+ * LibreCut is distributed in the hope that it will be useful, but WITHOUT ANY
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR
+ * A PARTICULAR PURPOSE. See the GNU Lesser General Public License for more
+ * details.
+ * 
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with LibreCut. If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.github.librecut.common.cutter.path;
+
+import java.util.List;
+
+import com.github.librecut.api.design.model.IPolyline;
+
+/**
+ * The reordered polylines of a path optimization together with the estimated
+ * pen-up travel distances before and after the optimization. Distances are
+ * measured in the units of the polyline coordinates, starting at the origin.
+ */
+public class PathOptimizationResult {
+
+	private final List<IPolyline> polylines;
+	private final double travelBefore;
+	private final double travelAfter;
+	private final long elapsedMillis;
+
+	public PathOptimizationResult(List<IPolyline> polylines, double travelBefore, double travelAfter,
+			long elapsedMillis) {
+
+		this.polylines = polylines;
+		this.travelBefore = travelBefore;
+		this.travelAfter = travelAfter;
+		this.elapsedMillis = elapsedMillis;
+	}
+
+	public List<IPolyline> getPolylines() {
+		return polylines;
+	}
+
+	public double getTravelBefore() {
+		return travelBefore;
+	}
+
+	public double getTravelAfter() {
+		return travelAfter;
+	}
+
+	public long getElapsedMillis() {
+		return elapsedMillis;
+	}
+
+	public double getTravelReduction() {
+
+		if (travelBefore <= 0.0d) {
+			return 0.0d;
+		}
+		return 1.0d - (travelAfter / travelBefore);
+	}
+
+	@Override
+	public String toString() {
+		return String.format("%d polylines reordered within %d ms, pen-up travel reduced from %.0f to %.0f (%.1f%%)",
+				polylines.size(), elapsedMillis, travelBefore, travelAfter, getTravelReduction() * 100.0d);
+	}
+}
@@ -0,0 +1,205 @@
+/**
+ * Copyright (C) 2016 Gerhard Mitzner.
+ * 
+ * This file is part of LibreCut.
+ * 
+ * LibreCut is free software: you can redistribute it and/or modify it under the
+ * terms of the GNU Lesser General Public License as published by the Free
+ * Software Foundation, either version 3 of the License, or (at your option) any
+ * later version.
+ * 
+ * LibreCut is distributed in the hope that it will be useful, but WITHOUT ANY
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR
+ * A PARTICULAR PURPOSE. See the GNU Lesser General Public License for more
+ * details.
+ * 
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with LibreCut. If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.github.librecut.common.cutter.path;
+
+import java.util.Arrays;
+
+import com.github.librecut.api.design.model.IPolyline;
+
+/**
+ * Removes points from polylines which do not change the cut by more than a
+ * given tolerance, using the Ramer-Douglas-Peucker algorithm. Runs of
+ * collinear or nearly collinear segments are merged into a single segment,
+ * and wiggles below the resolution of the cutter vanish. Deviations are
+ * measured against segments rather than lines, so points where the path
+ * turns back are kept.
+ * <p>
+ * The simplifier works on one polyline at a time and counts the points it
+ * has seen and kept, so it can be applied while a pattern is being created.
+ * </p>
+ */
+public class PolylineSimplifier {
+
+	private final double tolerance;
+
+	private long inputPointCount;
+	private long outputPointCount;
+
+	private double[] coordinateBuffer;
+	private boolean[] keepBuffer;
+
+	/**
+	 * @param tolerance
+	 *            the maximum deviation of the simplified polyline in the units
+	 *            of the polyline coordinates.
+	 */
+	public PolylineSimplifier(double tolerance) {
+		this.tolerance = tolerance;
+	}
+
+	/**
+	 * Creates a simplifier for polylines in cutter coordinates.
+	 * 
+	 * @param toleranceInches
+	 *            the maximum deviation in inches.
+	 * @param dpi
+	 *            the resolution of the cutter.
+	 * @return the simplifier.
+	 */
+	public static PolylineSimplifier forResolution(double toleranceInches, double dpi) {
+		return new PolylineSimplifier(toleranceInches * dpi);
+	}
+
+	/**
+	 * Simplifies the given polyline. The first and the last point are always
+	 * kept, so closed polylines stay closed.
+	 * 
+	 * @param polyline
+	 *            the polyline.
+	 * @return the given polyline if no point can be removed, a simplified
+	 *         polyline sharing its enabled state otherwise.
+	 */
+	public IPolyline simplify(IPolyline polyline) {
+
+		int pointCount = polyline.getPointCount();
+		inputPointCount += pointCount;
+		if (pointCount < 3) {
+			outputPointCount += pointCount;
+			return polyline;
+		}
+
+		// the buffers are reused for all polylines of a pattern
+		double[] coordinates = polyline.getCoordinates(coordinateBuffer);
+		coordinateBuffer = coordinates;
+		if ((keepBuffer == null) || (keepBuffer.length < pointCount)) {
+			keepBuffer = new boolean[coordinates.length / 2];
+		}
+		boolean[] keep = keepBuffer;
+		Arrays.fill(keep, 0, pointCount, false);
+
+		int keptCount = markKeptPoints(coordinates, pointCount, keep);
+		outputPointCount += keptCount;
+		if (keptCount == pointCount) {
+			return polyline;
+		}
+
+		double[] simplifiedCoordinates = new double[2 * keptCount];
+		int i = 0;
+		for (int vertex = 0; vertex < pointCount; ++vertex) {
+			if (keep[vertex]) {
+				simplifiedCoordinates[i++] = coordinates[2 * vertex];
+				simplifiedCoordinates[i++] = coordinates[2 * vertex + 1];
+			}
+		}
+		return new DerivedPolyline(polyline, simplifiedCoordinates);
+	}
+
+	public long getInputPointCount() {
+		return inputPointCount;
+	}
+
+	public long getOutputPointCount() {
+		return outputPointCount;
+	}
+
+	/**
+	 * Returns the share of points, and therefore of cutting commands, which
+	 * have been removed so far.
+	 */
+	public double getReduction() {
+
+		if (inputPointCount == 0) {
+			return 0.0d;
+		}
+		return 1.0d - ((double) outputPointCount / inputPointCount);
+	}
+
+	@Override
+	public String toString() {
+		return String.format("%d of %d points kept with a tolerance of %.2f (%.1f%% fewer cutting commands)",
+				outputPointCount, inputPointCount, tolerance, getReduction() * 100.0d);
+	}
+
+	private int markKeptPoints(double[] coordinates, int pointCount, boolean[] keep) {
+
+		double squaredTolerance = tolerance * tolerance;
+		keep[0] = true;
+		keep[pointCount - 1] = true;
+		int keptCount = 2;
+
+		// ranges still to be examined, stored as pairs of start and end index
+		int[] stack = new int[64];
+		int stackSize = 0;
+		stack[stackSize++] = 0;
+		stack[stackSize++] = pointCount - 1;
+		while (stackSize > 0) {
+			int end = stack[--stackSize];
+			int start = stack[--stackSize];
+			if (end - start < 2) {
+				continue;
+			}
+
+			double startX = coordinates[2 * start];
+			double startY = coordinates[2 * start + 1];
+			double endX = coordinates[2 * end];
+			double endY = coordinates[2 * end + 1];
+			int farthest = -1;
+			double farthestDistance = squaredTolerance;
+			for (int vertex = start + 1; vertex < end; ++vertex) {
+				double distance = squaredSegmentDistance(coordinates[2 * vertex], coordinates[2 * vertex + 1], startX,
+						startY, endX, endY);
+				if (distance > farthestDistance) {
+					farthestDistance = distance;
+					farthest = vertex;
+				}
+			}
+
+			if (farthest >= 0) {
+				keep[farthest] = true;
+				++keptCount;
+				if (stackSize + 4 > stack.length) {
+					int[] newStack = new int[2 * stack.length];
+					System.arraycopy(stack, 0, newStack, 0, stackSize);
+					stack = newStack;
+				}
+				stack[stackSize++] = start;
+				stack[stackSize++] = farthest;
+				stack[stackSize++] = farthest;
+				stack[stackSize++] = end;
+			}
+		}
+		return keptCount;
+	}
+
+	private static double squaredSegmentDistance(double x, double y, double startX, double startY, double endX,
+			double endY) {
+
+		double dx = endX - startX;
+		double dy = endY - startY;
+		double squaredLength = dx * dx + dy * dy;
+		double t = 0.0d;
+		if (squaredLength > 0.0d) {
+			t = ((x - startX) * dx + (y - startY) * dy) / squaredLength;
+			t = Math.max(0.0d, Math.min(1.0d, t));
+		}
+		double nearestX = startX + t * dx - x;
+		double nearestY = startY + t * dy - y;
+		return nearestX * nearestX + nearestY * nearestY;
+	}
+}
@@ -0,0 +1,228 @@
+/**
+ * Copyright (C) 2016 Gerhard Mitzner.
+ * 
+ * This file is part of LibreCut.
+ * 
+ * LibreCut is free software: you can redistribute it and/or modify it under the
+ * terms of the GNU Lesser General Public License as published by the Free
+ * Software Foundation, either version 3 of the License, or (at your option) any
+ * later version.
+ * 
+ * LibreCut is distributed in the hope that it will be useful, but WITHOUT ANY
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR
+ * A PARTICULAR PURPOSE. See the GNU Lesser General Public License for more
+ * details.
+ * 
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with LibreCut. If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.github.librecut.common.cutter.path;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.eclipse.core.runtime.IProgressMonitor;
+import org.eclipse.core.runtime.SubMonitor;
+
+import com.github.librecut.api.design.model.IPolyline;
+
+/**
+ * Path optimizer which minimizes the pen-up travel between polylines. A
+ * nearest neighbour tour over a grid index of all entry points is built first
+ * and then improved by 2-opt moves until no move within a window of
+ * neighbouring paths improves the tour or the time budget is exhausted.
+ */
+public class TravelPathOptimizer implements IPathOptimizer {
+
+	private static final int TWO_OPT_WINDOW = 64;
+	private static final int CANCEL_CHECK_INTERVAL = 1024;
+	private static final double MINIMUM_IMPROVEMENT = 1e-9;
+
+	private final long timeBudgetMillis;
+
+	/**
+	 * @param timeBudgetMillis
+	 *            the time after which the tour improvement is stopped. The
+	 *            nearest neighbour tour is always completed.
+	 */
+	public TravelPathOptimizer(long timeBudgetMillis) {
+		this.timeBudgetMillis = timeBudgetMillis;
+	}
+
+	@Override
+	public PathOptimizationResult optimize(List<IPolyline> polylines, IProgressMonitor monitor)
+			throws InterruptedException {
+
+		long startTime = System.nanoTime();
+		long deadline = startTime + TimeUnit.MILLISECONDS.toNanos(timeBudgetMillis);
+		SubMonitor subMonitor = SubMonitor.convert(monitor, 2);
+		try {
+			List<CutPath> pathList = new ArrayList<CutPath>(polylines.size());
+			List<IPolyline> emptyPolylineList = new ArrayList<IPolyline>();
+			for (IPolyline polyline : polylines) {
+				CutPath path = CutPath.create(polyline);
+				if (path != null) {
+					pathList.add(path);
+				} else {
+					emptyPolylineList.add(polyline);
+				}
+			}
+			CutPath[] paths = pathList.toArray(new CutPath[pathList.size()]);
+
+			double travelBefore = computeTravel(paths, 0.0d, 0.0d);
+			CutPath[] tour = createTour(paths, deadline, subMonitor.newChild(2));
+			double travelAfter = computeTravel(tour, 0.0d, 0.0d);
+
+			List<IPolyline> resultList = new ArrayList<IPolyline>(polylines.size());
+			for (CutPath path : tour) {
+				resultList.add(path.toPolyline());
+			}
+			resultList.addAll(emptyPolylineList);
+
+			long elapsedMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startTime);
+			return new PathOptimizationResult(resultList, travelBefore, travelAfter, elapsedMillis);
+		} finally {
+			monitor.done();
+		}
+	}
+
+	/**
+	 * Creates the tour through all paths, starting at the origin.
+	 * 
+	 * @return the paths in cutting order.
+	 */
+	CutPath[] createTour(CutPath[] paths, long deadline, IProgressMonitor monitor) throws InterruptedException {
+		return orderPaths(paths, 0.0d, 0.0d, deadline, monitor);
+	}
+
+	/**
+	 * Orders the given paths into a tour starting at the given position and
+	 * chooses their entry points and directions.
+	 * 
+	 * @return the paths in cutting order.
+	 */
+	static CutPath[] orderPaths(CutPath[] paths, double startX, double startY, long deadline,
+			IProgressMonitor monitor) throws InterruptedException {
+
+		SubMonitor subMonitor = SubMonitor.convert(monitor, 2);
+		CutPath[] tour = buildNearestNeighbourTour(paths, startX, startY, subMonitor.newChild(1));
+		improveTour(tour, startX, startY, deadline, subMonitor.newChild(1));
+		return tour;
+	}
+
+	static double computeTravel(CutPath[] paths, double startX, double startY) {
+
+		double travel = 0.0d;
+		double x = startX;
+		double y = startY;
+		for (CutPath path : paths) {
+			travel += distance(x, y, path.getEntryX(), path.getEntryY());
+			x = path.getExitX();
+			y = path.getExitY();
+		}
+		return travel;
+	}
+
+	private static CutPath[] buildNearestNeighbourTour(CutPath[] paths, double startX, double startY,
+			IProgressMonitor monitor) throws InterruptedException {
+
+		SubMonitor subMonitor = SubMonitor.convert(monitor, paths.length);
+		CutPath[] tour = new CutPath[paths.length];
+		if (paths.length == 0) {
+			return tour;
+		}
+
+		EntryPointIndex index = new EntryPointIndex(paths);
+		double x = startX;
+		double y = startY;
+		for (int i = 0; i < paths.length; ++i) {
+			int entry = index.findNearest(x, y);
+			int pathIndex = index.getPath(entry);
+			CutPath path = paths[pathIndex];
+			path.setEntryVertex(index.getVertex(entry));
+			index.remove(pathIndex);
+
+			tour[i] = path;
+			x = path.getExitX();
+			y = path.getExitY();
+
+			if ((i % CANCEL_CHECK_INTERVAL) == 0) {
+				if (subMonitor.isCanceled()) {
+					throw new InterruptedException();
+				}
+				subMonitor.worked(Math.min(CANCEL_CHECK_INTERVAL, paths.length - i));
+			}
+		}
+		return tour;
+	}
+
+	/**
+	 * Applies 2-opt moves, each of which reverses a section of the tour
+	 * including the direction of its open paths, as long as they shorten the
+	 * travel. Only sections of up to {@link #TWO_OPT_WINDOW} paths are
+	 * considered, which keeps a pass linear in the number of paths.
+	 */
+	private static void improveTour(CutPath[] tour, double startX, double startY, long deadline,
+			IProgressMonitor monitor) throws InterruptedException {
+
+		SubMonitor subMonitor = SubMonitor.convert(monitor, IProgressMonitor.UNKNOWN);
+		int n = tour.length;
+		int checkCounter = 0;
+		boolean improved = true;
+		while (improved) {
+			improved = false;
+			for (int i = 0; i < n; ++i) {
+				double previousX = (i == 0) ? startX : tour[i - 1].getExitX();
+				double previousY = (i == 0) ? startY : tour[i - 1].getExitY();
+				int maxJ = Math.min(n - 1, i + TWO_OPT_WINDOW);
+				for (int j = i + 1; j <= maxJ; ++j) {
+					CutPath first = tour[i];
+					CutPath last = tour[j];
+					double before = distance(previousX, previousY, first.getEntryX(), first.getEntryY());
+					double after = distance(previousX, previousY, last.getExitX(), last.getExitY());
+					if (j < n - 1) {
+						CutPath next = tour[j + 1];
+						before += distance(last.getExitX(), last.getExitY(), next.getEntryX(), next.getEntryY());
+						after += distance(first.getEntryX(), first.getEntryY(), next.getEntryX(), next.getEntryY());
+					}
+					if (after < before - MINIMUM_IMPROVEMENT) {
+						reverseSection(tour, i, j);
+						improved = true;
+					}
+				}
+
+				if (++checkCounter >= CANCEL_CHECK_INTERVAL / 16) {
+					checkCounter = 0;
+					if (subMonitor.isCanceled()) {
+						throw new InterruptedException();
+					}
+					if (System.nanoTime() - deadline > 0) {
+						return;
+					}
+					subMonitor.worked(1);
+				}
+			}
+		}
+	}
+
+	private static void reverseSection(CutPath[] tour, int from, int to) {
+
+		for (int i = from, j = to; i <= j; ++i, --j) {
+			CutPath path = tour[i];
+			tour[i] = tour[j];
+			tour[j] = path;
+			tour[i].reverse();
+			if (i != j) {
+				tour[j].reverse();
+			}
+		}
+	}
+
+	private static double distance(double x1, double y1, double x2, double y2) {
+
+		double dx = x2 - x1;
+		double dy = y2 - y1;
+		return Math.sqrt(dx * dx + dy * dy);
+	}
+}
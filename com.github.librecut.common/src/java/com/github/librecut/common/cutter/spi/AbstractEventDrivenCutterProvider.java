@@ -0,0 +1,82 @@
+/**
+ * Copyright (C) 2016 Gerhard Mitzner.
+ * 
+ * This file is part of LibreCut.
+ * 
+ * LibreCut is free software: you can redistribute it and/or modify it under the
+ * terms of the GNU Lesser General Public License as published by the Free
+ * Software Foundation, either version 3 of the License, or (at your option) any
+ * later version.
+ * 
+ * LibreCut is distributed in the hope that it will be useful, but WITHOUT ANY
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR
+ * A PARTICULAR PURPOSE. See the GNU Lesser General Public License for more
+ * details.
+ * 
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with LibreCut. If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.github.librecut.common.cutter.spi;
+
+/**
+ * Cutter provider which enumerates the devices only when the platform reports
+ * an attached or detached device. Apart from that, it only refreshes the
+ * states of known cutters while state refresh is enabled, without
+ * enumerating the devices. If device change notifications are not available,
+ * it falls back to polling.
+ */
+public abstract class AbstractEventDrivenCutterProvider extends AbstractPollingCutterProvider {
+
+	/**
+	 * Gives a freshly attached device some time to settle and coalesces bursts
+	 * of notifications into a single detection round.
+	 */
+	private static final int DEVICE_CHANGE_DELAY_MILLIS = 100;
+
+	private final int fallbackPollingIntervalMillis;
+
+	public AbstractEventDrivenCutterProvider(String searchJobDescription, int fallbackPollingIntervalMillis,
+			int stateRefreshIntervalMillis) {
+		super(searchJobDescription, fallbackPollingIntervalMillis);
+
+		this.fallbackPollingIntervalMillis = fallbackPollingIntervalMillis;
+		setStateRefreshInterval(stateRefreshIntervalMillis);
+	}
+
+	/**
+	 * Starts the delivery of device change notifications, which must be
+	 * forwarded to {@link #handleDeviceChange()}.
+	 * 
+	 * @return <code>true</code> if notifications are delivered,
+	 *         <code>false</code> if the provider has to fall back to polling.
+	 */
+	protected abstract boolean startDeviceChangeNotification();
+
+	protected abstract void stopDeviceChangeNotification();
+
+	/**
+	 * Triggers a detection round. This method does not block and may be called
+	 * from any thread.
+	 */
+	protected void handleDeviceChange() {
+		requestDetection(DEVICE_CHANGE_DELAY_MILLIS);
+	}
+
+	@Override
+	public void startup() {
+
+		if (startDeviceChangeNotification()) {
+			setPollingInterval(0);
+		} else {
+			setPollingInterval(fallbackPollingIntervalMillis);
+		}
+		super.startup();
+	}
+
+	@Override
+	public void shutdown() {
+
+		stopDeviceChangeNotification();
+		super.shutdown();
+	}
+}
@@ -21,7 +21,11 @@ package com.github.librecut.common.cutter.spi;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicReference;
 
 import org.eclipse.core.runtime.IProgressMonitor;
@@ -33,6 +37,7 @@ import org.eclipse.core.runtime.Status;
 import org.eclipse.core.runtime.jobs.Job;
 
 import com.github.librecut.api.cutter.model.ICutter;
+import com.github.librecut.api.cutter.model.ICutter.DeviceState;
 import com.github.librecut.api.cutter.spi.ICutterProvider;
 import com.github.librecut.api.cutter.spi.ICutterStatusListener;
 
@@ -40,25 +45,80 @@ public abstract class AbstractPollingCutterProvider implements ICutterProvider {
 
 	private final String searchJobDescription;
 	private final ListenerList<ICutterStatusListener> listenerList;
-	private final AtomicReference<Collection<ICutter>> cuttersRef;
+	private final AtomicReference<Map<String, ICutter>> cuttersRef;
 
-	private int pollingIntervalMillis;
+	private final AtomicBoolean detectionRequested;
+
+	private volatile int pollingIntervalMillis;
+	private volatile int stateRefreshIntervalMillis;
+	private volatile boolean stateRefreshEnabled;
 	private Job searchJob;
 
 	public AbstractPollingCutterProvider(String searchJobDescription, int pollingIntervalMillis) {
 
 		this.searchJobDescription = searchJobDescription;
 		this.listenerList = new ListenerList<>();
-		this.cuttersRef = new AtomicReference<>(Collections.emptyList());
+		this.cuttersRef = new AtomicReference<>(Collections.<String, ICutter>emptyMap());
+		this.detectionRequested = new AtomicBoolean(true);
 		this.pollingIntervalMillis = pollingIntervalMillis;
 	}
 
 	protected abstract Collection<ICutter> detectCutters(IProgressMonitor monitor) throws InterruptedException;
 
+	/**
+	 * Updates the states of the given cutters without looking for new devices.
+	 * Called for refresh rounds, which are only run while polling is disabled.
+	 * The default implementation runs a full detection.
+	 * 
+	 * @return the cutters which are still available.
+	 */
+	protected Collection<ICutter> refreshCutterStates(Collection<ICutter> cutters, IProgressMonitor monitor)
+			throws InterruptedException {
+		return detectCutters(monitor);
+	}
+
+	/**
+	 * Sets the interval between two detection rounds. A non-positive interval
+	 * disables polling; detection rounds are then only run on startup and on
+	 * {@link #requestDetection(long)}.
+	 */
 	protected void setPollingInterval(int pollingIntervalMillis) {
 		this.pollingIntervalMillis = pollingIntervalMillis;
 	}
 
+	/**
+	 * Sets the interval between two refresh rounds, which only update the
+	 * states of known cutters. They are run while polling is disabled, state
+	 * refresh is enabled and cutters are available. A non-positive interval
+	 * disables refresh rounds.
+	 */
+	protected void setStateRefreshInterval(int stateRefreshIntervalMillis) {
+		this.stateRefreshIntervalMillis = stateRefreshIntervalMillis;
+	}
+
+	@Override
+	public void setStateRefreshEnabled(boolean enabled) {
+
+		stateRefreshEnabled = enabled;
+		Job job = searchJob;
+		if (enabled && (job != null)) {
+			job.schedule();
+		}
+	}
+
+	/**
+	 * Requests a detection round after the given delay. Requests arriving while
+	 * a round is pending are coalesced.
+	 */
+	protected void requestDetection(long delayMillis) {
+
+		detectionRequested.set(true);
+		Job job = searchJob;
+		if (job != null) {
+			job.schedule(delayMillis);
+		}
+	}
+
 	@Override
 	public void startup() {
 
@@ -68,33 +128,51 @@ public abstract class AbstractPollingCutterProvider implements ICutterProvider {
 
 		searchJob = new Job(searchJobDescription) {
 
+			/**
+			 * States reported in the last round. Providers may return the same
+			 * cutter instances in every round, so the states of the previous
+			 * cutters cannot be compared.
+			 */
+			private Map<String, DeviceState> reportedStateMap = Collections.emptyMap();
+
 			@Override
 			protected IStatus run(IProgressMonitor monitor) {
 
 				try {
-					Collection<ICutter> newCutters = detectCutters(monitor);
-					Collection<ICutter> oldCutters = cuttersRef.get();
+					Map<String, ICutter> oldCutters = cuttersRef.get();
+					Collection<ICutter> detectedCutters;
+					if (detectionRequested.getAndSet(false) || (pollingIntervalMillis > 0)) {
+						detectedCutters = detectCutters(monitor);
+					} else {
+						detectedCutters = refreshCutterStates(oldCutters.values(), monitor);
+					}
+					Map<String, ICutter> newCutters = new LinkedHashMap<>(detectedCutters.size() * 2);
+					Map<String, DeviceState> newStateMap = new HashMap<>(detectedCutters.size() * 2);
+					for (ICutter cutter : detectedCutters) {
+						newCutters.put(cutter.getId(), cutter);
+						newStateMap.put(cutter.getId(), cutter.getDeviceState());
+					}
 
 					List<String> lostCutterIdList = new ArrayList<>();
-					for (ICutter oldCutter : oldCutters) {
-						ICutter newCutter = getCutter(oldCutter.getId(), newCutters);
-						if (newCutter == null) {
-							lostCutterIdList.add(oldCutter.getId());
+					for (String cutterId : oldCutters.keySet()) {
+						if (!newCutters.containsKey(cutterId)) {
+							lostCutterIdList.add(cutterId);
 						}
 					}
 
 					List<ICutter> newCutterList = new ArrayList<>();
 					List<ICutter> changedCutterList = new ArrayList<>();
-					for (ICutter newCutter : newCutters) {
-						ICutter oldCutter = getCutter(newCutter.getId(), oldCutters);
-						if (oldCutter == null) {
+					for (ICutter newCutter : newCutters.values()) {
+						if (!oldCutters.containsKey(newCutter.getId())) {
 							newCutterList.add(newCutter);
-						} else if (!newCutter.getDeviceState().equals(oldCutter.getDeviceState())) {
+						} else if (!newStateMap.get(newCutter.getId())
+								.equals(reportedStateMap.get(newCutter.getId()))) {
 							changedCutterList.add(newCutter);
 						}
 					}
 
-					cuttersRef.set(newCutters);
+					cuttersRef.set(Collections.unmodifiableMap(newCutters));
+					reportedStateMap = newStateMap;
 
 					for (String cutterId : lostCutterIdList) {
 						for (ICutterStatusListener listener : listenerList) {
@@ -118,18 +196,14 @@ public abstract class AbstractPollingCutterProvider implements ICutterProvider {
 				} catch (InterruptedException e) {
 					return Status.CANCEL_STATUS;
 				} finally {
-					schedule(pollingIntervalMillis);
-				}
-			}
-
-			private ICutter getCutter(String id, Collection<ICutter> cutters) {
-
-				for (ICutter cutter : cutters) {
-					if (id.equals(cutter.getId())) {
-						return cutter;
+					int intervalMillis = pollingIntervalMillis;
+					int refreshIntervalMillis = stateRefreshIntervalMillis;
+					if (intervalMillis > 0) {
+						schedule(intervalMillis);
+					} else if (stateRefreshEnabled && (refreshIntervalMillis > 0) && !cuttersRef.get().isEmpty()) {
+						schedule(refreshIntervalMillis);
 					}
 				}
-				return null;
 			}
 		};
 		searchJob.schedule();
@@ -144,7 +218,7 @@ public abstract class AbstractPollingCutterProvider implements ICutterProvider {
 	public void addStatusListener(ICutterStatusListener listener) {
 
 		listenerList.add(listener);
-		Collection<ICutter> cutters = cuttersRef.get();
+		Collection<ICutter> cutters = cuttersRef.get().values();
 		for (ICutter cutter : cutters) {
 			notifyNewCutter(cutter, listener);
 		}
@@ -0,0 +1,115 @@
+/**
+ * Copyright (C) 2016 Gerhard Mitzner.
+ * 
+ * This file is part of LibreCut.
+ * 
+ * LibreCut is free software: you can redistribute it and/or modify it under the
+ * terms of the GNU Lesser General Public License as published by the Free
+ * Software Foundation, either version 3 of the License, or (at your option) any
+ * later version.
+ * 
+ * LibreCut is distributed in the hope that it will be useful, but WITHOUT ANY
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR
+ * A PARTICULAR PURPOSE. See the GNU Lesser General Public License for more
+ * details.
+ * 
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with LibreCut. If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.github.librecut.common.design.model;
+
+import java.util.AbstractList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.RandomAccess;
+
+import com.github.librecut.api.design.model.ICoordinateConsumer;
+import com.github.librecut.api.design.model.IPoint;
+import com.github.librecut.api.design.model.IPolyline;
+
+/**
+ * Polyline which stores its points as interleaved X and Y values in a
+ * coordinate array which can be shared with other polylines. Point instances
+ * are only created when the point list is accessed.
+ */
+public abstract class PackedPolyline implements IPolyline {
+
+	private final double[] coordinates;
+	private final int offset;
+	private final int pointCount;
+
+	/**
+	 * @param coordinates
+	 *            the coordinate array.
+	 * @param offset
+	 *            the index of the first point in the coordinate array.
+	 * @param pointCount
+	 *            the number of points.
+	 */
+	protected PackedPolyline(double[] coordinates, int offset, int pointCount) {
+
+		this.coordinates = coordinates;
+		this.offset = offset;
+		this.pointCount = pointCount;
+	}
+
+	@Override
+	public Iterator<IPoint> iterator() {
+		return getPointList().iterator();
+	}
+
+	@Override
+	public List<IPoint> getPointList() {
+		return new PointList();
+	}
+
+	@Override
+	public int getPointCount() {
+		return pointCount;
+	}
+
+	@Override
+	public double[] getCoordinates(double[] coordinates) {
+
+		double[] result = coordinates;
+		if ((result == null) || (result.length < 2 * pointCount)) {
+			result = new double[2 * pointCount];
+		}
+		System.arraycopy(this.coordinates, 2 * offset, result, 0, 2 * pointCount);
+		return result;
+	}
+
+	@Override
+	public void forEachPoint(ICoordinateConsumer consumer) {
+
+		int end = 2 * (offset + pointCount);
+		for (int i = 2 * offset; i < end; i += 2) {
+			consumer.accept(coordinates[i], coordinates[i + 1]);
+		}
+	}
+
+	public double getX(int vertex) {
+		return coordinates[2 * (offset + vertex)];
+	}
+
+	public double getY(int vertex) {
+		return coordinates[2 * (offset + vertex) + 1];
+	}
+
+	private class PointList extends AbstractList<IPoint> implements RandomAccess {
+
+		@Override
+		public IPoint get(int index) {
+
+			if ((index < 0) || (index >= pointCount)) {
+				throw new IndexOutOfBoundsException(Integer.toString(index));
+			}
+			return new Point(getX(index), getY(index));
+		}
+
+		@Override
+		public int size() {
+			return pointCount;
+		}
+	}
+}
@@ -0,0 +1,123 @@
+/**
+ * Copyright (C) 2016 Gerhard Mitzner.
+ * 
+ * This file is part of LibreCut.
+ * 
+ * LibreCut is free software: you can redistribute it and/or modify it under the
+ * terms of the GNU Lesser General Public License as published by the Free
+ * Software Foundation, either version 3 of the License, or (at your option) any
+ * later version.
+ * 
+ * LibreCut is distributed in the hope that it will be useful, but WITHOUT ANY
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR
+ * A PARTICULAR PURPOSE. See the GNU Lesser General Public License for more
+ * details.
+ * 
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with LibreCut. If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.github.librecut.common.design.model;
+
+import java.util.Arrays;
+
+/**
+ * Collects the points of many polylines in a single coordinate array, so
+ * patterns can be created without allocating an object per point. Polylines
+ * are identified by their index in the order in which they have been
+ * finished.
+ */
+public class PackedPolylineBuilder {
+
+	private double[] coordinates;
+	private int[] polylineOffsets;
+	private int pointCount;
+	private int polylineCount;
+	private int polylineStart;
+
+	public PackedPolylineBuilder() {
+		this(256);
+	}
+
+	public PackedPolylineBuilder(int initialPointCapacity) {
+
+		this.coordinates = new double[2 * Math.max(initialPointCapacity, 16)];
+		this.polylineOffsets = new int[17];
+	}
+
+	/**
+	 * Appends a point to the current polyline.
+	 */
+	public void addPoint(double x, double y) {
+
+		if (2 * pointCount + 2 > coordinates.length) {
+			coordinates = Arrays.copyOf(coordinates, Math.max(2 * coordinates.length, 32));
+		}
+		coordinates[2 * pointCount] = x;
+		coordinates[2 * pointCount + 1] = y;
+		++pointCount;
+	}
+
+	/**
+	 * Returns the number of points added to the current polyline.
+	 */
+	public int getCurrentPointCount() {
+		return pointCount - polylineStart;
+	}
+
+	/**
+	 * Finishes the current polyline. Polylines with less than two points are
+	 * discarded.
+	 * 
+	 * @return the index of the finished polyline, or -1 if it has been
+	 *         discarded.
+	 */
+	public int endPolyline() {
+
+		if (getCurrentPointCount() < 2) {
+			pointCount = polylineStart;
+			return -1;
+		}
+
+		if (polylineCount + 2 > polylineOffsets.length) {
+			polylineOffsets = Arrays.copyOf(polylineOffsets, 2 * polylineOffsets.length);
+		}
+		polylineOffsets[polylineCount] = polylineStart;
+		++polylineCount;
+		polylineOffsets[polylineCount] = pointCount;
+		polylineStart = pointCount;
+		return polylineCount - 1;
+	}
+
+	public int getPolylineCount() {
+		return polylineCount;
+	}
+
+	/**
+	 * Returns the index of the first point of the given polyline in the
+	 * coordinate array.
+	 */
+	public int getOffset(int polylineIndex) {
+		return polylineOffsets[polylineIndex];
+	}
+
+	public int getPointCount(int polylineIndex) {
+		return polylineOffsets[polylineIndex + 1] - polylineOffsets[polylineIndex];
+	}
+
+	/**
+	 * Returns the coordinates of all finished polylines. The array is trimmed
+	 * to its content, so no more points must be added afterwards if the array
+	 * is shared by polylines.
+	 * 
+	 * @return the interleaved X and Y values.
+	 */
+	public double[] getCoordinates() {
+
+		int length = 2 * polylineStart;
+		if (coordinates.length != length) {
+			coordinates = Arrays.copyOf(coordinates, length);
+			pointCount = polylineStart;
+		}
+		return coordinates;
+	}
+}
@@ -18,11 +18,11 @@
  */
 package com.github.librecut.internal.cutter.silhouette;
 
-import java.io.ByteArrayOutputStream;
-import java.io.IOException;
+import java.nio.ByteBuffer;
 import java.util.Collection;
-import java.util.Iterator;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
 
 import org.eclipse.core.runtime.IProgressMonitor;
 import org.eclipse.core.runtime.IStatus;
@@ -31,11 +31,11 @@ import org.eclipse.core.runtime.SubMonitor;
 
 import com.github.librecut.api.cutter.model.ICutterDescriptor;
 import com.github.librecut.api.design.model.IPattern;
-import com.github.librecut.api.design.model.IPoint;
 import com.github.librecut.api.design.model.IPolyline;
 import com.github.librecut.common.usb.Usb;
 import com.github.librecut.common.usb.UsbDeviceDescriptor;
 import com.github.librecut.common.usb.UsbDeviceHandle;
+import com.github.librecut.common.usb.UsbDeviceSession;
 import com.github.librecut.common.usb.UsbException;
 
 public class CameoCutter implements IStatefulCutter {
@@ -48,40 +48,45 @@ public class CameoCutter implements IStatefulCutter {
 	private static final byte GET_STATUS_COMMAND[] = new byte[] { (byte) 0x1b, (byte) 0x05 };
 	private static final byte RESET_COMMAND[] = new byte[] { (byte) 0x1b, (byte) 0x04 };
 
-	private static final String COMMAND_ENCODING = "UTF-8";
-	private static final byte COMMAND_DELIMITER = (byte) 0x03;
-
 	private static final String HOME_CUTTER_1 = "TT";
 	private static final String HOME_CUTTER_2 = "H";
-	private static final String SET_MEDIA_TYPE = "FW%d";
-	private static final String SET_CUTTING_SPEED = "!%d";
-	private static final String SET_CUTTING_PRESSURE = "FX%d";
-	private static final String SET_CUTTING_OFFSET = "FC%d";
-	private static final String SET_TRACK_ENHANCING = "FY%d";
-	private static final String SET_MEDIA_ORIENTATION = "FN%d";
+	private static final String SET_MEDIA_TYPE = "FW";
+	private static final String SET_CUTTING_SPEED = "!";
+	private static final String SET_CUTTING_PRESSURE = "FX";
+	private static final String SET_CUTTING_OFFSET = "FC";
+	private static final String SET_TRACK_ENHANCING = "FY";
+	private static final String SET_MEDIA_ORIENTATION = "FN";
 	private static final String FEED_OUT = "FO0";
 	private static final String START_CUTTING_0 = "TB50,0";
 	private static final String START_CUTTING_1 = "FE0,0";
 	private static final String START_CUTTING_2 = "FF0,0,0";
-	private static final String SET_LOWER_LEFT = "\\%d,%d";
-	private static final String SET_UPPER_RIGHT = "Z%d,%d";
-	private static final String SET_LINE_TYPE = "L%d";
+	private static final String SET_LOWER_LEFT = "\\";
+	private static final String SET_UPPER_RIGHT = "Z";
+	private static final String SET_LINE_TYPE = "L";
+	private static final char MOVE = 'M';
+	private static final char DRAW = 'D';
 
 	private static final int MINIMUM_COMMAND_LENGTH = 100;
+	private static final int STATUS_CHECK_BATCH_INTERVAL = 10;
+
+	private static final long STATUS_POLLING_INTERVAL_MILLIS = 200;
+	private static final long DRAIN_TIMEOUT_MILLIS = 5 * 60 * 1000;
 
 	private static final int GET_STATUS_TIMEOUT_MILLIS = 10000;
 	private static final int RESET_TIMEOUT_MILLIS = 10000;
 	private static final int WRITE_COMMAND_TIMEOUT_MILLIS = 1000;
 
 	private final String id;
+	private final CameoCutterDescriptor cutterDescriptor;
 	private final Usb usb;
 	private final UsbDeviceDescriptor descriptor;
 
 	private volatile DeviceState state;
 
-	public CameoCutter(String id, Usb usb, UsbDeviceDescriptor descriptor) {
+	public CameoCutter(String id, CameoCutterDescriptor cutterDescriptor, Usb usb, UsbDeviceDescriptor descriptor) {
 
 		this.id = id;
+		this.cutterDescriptor = cutterDescriptor;
 		this.usb = usb;
 		this.descriptor = descriptor;
 
@@ -95,7 +100,7 @@ public class CameoCutter implements IStatefulCutter {
 
 	@Override
 	public ICutterDescriptor getDescriptor() {
-		return new CameoCutterDescriptor();
+		return cutterDescriptor;
 	}
 
 	@Override
@@ -106,96 +111,88 @@ public class CameoCutter implements IStatefulCutter {
 	@Override
 	public void updateDeviceState(IProgressMonitor monitor) throws InterruptedException {
 
-		UsbDeviceHandle device = null;
+		UsbDeviceSession session = usb.openSession(descriptor, INTERFACE_ID);
 		try {
-			device = usb.openDevice(descriptor);
-			if (monitor.isCanceled()) {
-				throw new InterruptedException();
-			}
-			if (device == null) {
-				state = DeviceState.Off;
+			if (!session.getLock().tryLock()) {
+				// the cutter is in use by a running cut or reset
+				state = DeviceState.Busy;
 				return;
 			}
-
-			device.claimInterface(INTERFACE_ID);
 			try {
+				UsbDeviceHandle device = session.getHandle();
 				if (monitor.isCanceled()) {
 					throw new InterruptedException();
 				}
+				if (device == null) {
+					state = DeviceState.Off;
+					return;
+				}
 				state = queryDeviceState(device, monitor);
+			} catch (UsbException e) {
+				// TODO log error
+				session.invalidate();
+				state = DeviceState.Error;
 			} finally {
-				device.releaseInterface(INTERFACE_ID);
+				session.getLock().unlock();
 			}
-		} catch (UsbException e) {
-			// TODO log error
-			state = DeviceState.Error;
 		} finally {
-			if (device != null) {
-				device.close();
-			}
+			session.close();
 		}
 	}
 
 	@Override
 	public IStatus reset(IProgressMonitor monitor) {
 
-		UsbDeviceHandle device = null;
+		UsbDeviceSession session = usb.openSession(descriptor, INTERFACE_ID);
+		session.getLock().lock();
 		try {
-			device = usb.openDevice(descriptor);
+			UsbDeviceHandle device = session.getHandle();
 			if (monitor.isCanceled()) {
 				return Status.CANCEL_STATUS;
 			}
 			if (device == null) {
 				return handleDeviceNotAvailable();
 			}
-			device.claimInterface(INTERFACE_ID);
-			try {
+			device.bulkWrite(ENDPOINT_ID_COMMAND, RESET_COMMAND, RESET_TIMEOUT_MILLIS);
+			if (monitor.isCanceled()) {
+				return Status.CANCEL_STATUS;
+			}
+
+			boolean resetFinished = false;
+			while (!resetFinished) {
+				device.bulkWrite(ENDPOINT_ID_COMMAND, GET_STATUS_COMMAND, GET_STATUS_TIMEOUT_MILLIS);
 				if (monitor.isCanceled()) {
 					return Status.CANCEL_STATUS;
 				}
-				device.bulkWrite(ENDPOINT_ID_COMMAND, RESET_COMMAND, RESET_TIMEOUT_MILLIS);
+				byte[] response = device.bulkRead(ENDPOINT_ID_STATUS, GET_STATUS_TIMEOUT_MILLIS);
+				if ((response.length != 2) || (response[1] != (byte) 0x03)) {
+					// TODO log error
+					return new Status(IStatus.ERROR, Activator.PLUGIN_ID, "Invalid status response received");
+				}
+				switch (response[0] & (byte) 0x03) {
+				case 0:
+					resetFinished = true;
+					break;
+				case 1:
+					break;
+				case 2:
+					resetFinished = true;
+					break;
+				default:
+					// TODO log error
+					return new Status(IStatus.ERROR, Activator.PLUGIN_ID, "Invalid status response received");
+				}
 				if (monitor.isCanceled()) {
 					return Status.CANCEL_STATUS;
 				}
-
-				boolean resetFinished = false;
-				while (!resetFinished) {
-					device.bulkWrite(ENDPOINT_ID_COMMAND, GET_STATUS_COMMAND, GET_STATUS_TIMEOUT_MILLIS);
-					if (monitor.isCanceled()) {
-						return Status.CANCEL_STATUS;
-					}
-					byte[] response = device.bulkRead(ENDPOINT_ID_STATUS, GET_STATUS_TIMEOUT_MILLIS);
-					if ((response.length != 2) || (response[1] != (byte) 0x03)) {
-						// TODO log error
-						return new Status(IStatus.ERROR, Activator.PLUGIN_ID, "Invalid status response received");
-					}
-					switch (response[0] & (byte) 0x03) {
-					case 0:
-						resetFinished = true;
-						break;
-					case 1:
-						break;
-					case 2:
-						resetFinished = true;
-						break;
-					default:
-						// TODO log error
-						return new Status(IStatus.ERROR, Activator.PLUGIN_ID, "Invalid status response received");
-					}
-					if (monitor.isCanceled()) {
-						return Status.CANCEL_STATUS;
-					}
-				}
-			} finally {
-				device.releaseInterface(INTERFACE_ID);
 			}
 		} catch (UsbException e) {
 			// TODO log error
+			session.invalidate();
 			return new Status(IStatus.ERROR, Activator.PLUGIN_ID, "USB communication has failed.", e);
 		} finally {
-			if (device != null) {
-				device.close();
-			}
+			session.getLock().unlock();
+			session.close();
 		}
 		return Status.OK_STATUS;
 	}
@@ -207,16 +204,17 @@ public class CameoCutter implements IStatefulCutter {
 			return new Status(IStatus.ERROR, Activator.PLUGIN_ID, "Invalid parameters");
 		}
 
-		UsbDeviceHandle device = null;
+		IStatus cuttingStatus = Status.OK_STATUS;
+		UsbDeviceSession session = usb.openSession(descriptor, INTERFACE_ID);
+		session.getLock().lock();
 		try {
-			device = usb.openDevice(descriptor);
+			UsbDeviceHandle device = session.getHandle();
 			if (monitor.isCanceled()) {
 				return Status.CANCEL_STATUS;
 			}
 			if (device == null) {
 				return handleDeviceNotAvailable();
 			}
-			device.claimInterface(INTERFACE_ID);
 			try {
 				DeviceState deviceState = waitWhileBusy(device, monitor);
 				if (deviceState != DeviceState.Ready) {
@@ -243,11 +241,15 @@ public class CameoCutter implements IStatefulCutter {
 					return handleDeviceNotReady(deviceState);
 				}
 
-				sendCuttingData(device, pattern, monitor);
-				deviceState = waitWhileBusy(device, monitor);
-				if (deviceState != DeviceState.Ready) {
-					return handleDeviceNotReady(deviceState);
+				CuttingStatistics statistics = sendCuttingData(device, pattern, monitor);
+				if ((statistics.getDeviceState() == DeviceState.Busy)
+						|| (statistics.getDeviceState() == DeviceState.Initializing)) {
+					return new Status(IStatus.ERROR, Activator.PLUGIN_ID, "Device has not finished cutting in time");
+				}
+				if (statistics.getDeviceState() != DeviceState.Ready) {
+					return handleDeviceNotReady(statistics.getDeviceState());
 				}
+				cuttingStatus = new Status(IStatus.OK, Activator.PLUGIN_ID, statistics.toString());
 
 				feedMediaOut(device, monitor);
 				deviceState = waitWhileBusy(device, monitor);
@@ -256,19 +258,17 @@ public class CameoCutter implements IStatefulCutter {
 				}
 			} catch (InterruptedException e) {
 				return Status.CANCEL_STATUS;
-			} finally {
-				device.releaseInterface(INTERFACE_ID);
 			}
 		} catch (UsbException e) {
 			// TODO log error
 			System.err.println(e.getMessage());
+			session.invalidate();
 			return new Status(IStatus.ERROR, Activator.PLUGIN_ID, "USB communication has failed.", e);
 		} finally {
-			if (device != null) {
-				device.close();
-			}
+			session.getLock().unlock();
+			session.close();
 		}
-		return Status.OK_STATUS;
+		return cuttingStatus;
 	}
 
 	private boolean validateParameters(Map<String, Object> parameterMap) {
@@ -321,88 +321,187 @@ public class CameoCutter implements IStatefulCutter {
 	private void sendCuttingInitializationSequence(UsbDeviceHandle device, IProgressMonitor monitor)
 			throws UsbException, InterruptedException {
 
-		ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+		GpglCommandEncoder buffer = new GpglCommandEncoder(64);
 
-		appendCommand(buffer, START_CUTTING_0);
-		// appendCommand(buffer, String.format(SET_LOWER_LEFT, 30, 30));
-		appendCommand(buffer, START_CUTTING_1);
-		appendCommand(buffer, START_CUTTING_2);
-		appendCommand(buffer, String.format(SET_LINE_TYPE, 0));
-		finishCommand(buffer);
+		buffer.appendCommand(START_CUTTING_0);
+		// buffer.appendCommand(SET_LOWER_LEFT, 30, 30);
+		buffer.appendCommand(START_CUTTING_1);
+		buffer.appendCommand(START_CUTTING_2);
+		buffer.appendCommand(SET_LINE_TYPE, 0);
+		buffer.finishCommand();
 
-		device.bulkWrite(ENDPOINT_ID_COMMAND, buffer.toByteArray(), WRITE_COMMAND_TIMEOUT_MILLIS);
+		device.bulkWrite(ENDPOINT_ID_COMMAND, buffer.asByteBuffer(), WRITE_COMMAND_TIMEOUT_MILLIS);
 	}
 
-	private void sendCuttingData(UsbDeviceHandle device, IPattern pattern, IProgressMonitor monitor)
+	/**
+	 * Streams the cutting data to the plotter. The commands are written
+	 * back-to-back so the input buffer of the plotter never runs dry; a full
+	 * input buffer makes the device NAK the bulk transfer, which blocks the
+	 * write until the plotter has consumed enough data. One batch is kept in
+	 * flight asynchronously while the next one is encoded. The plotter state is
+	 * sampled every few batches between two batches without waiting for it to
+	 * become ready, and the plotter is drained only once all data has been
+	 * sent.
+	 */
+	private CuttingStatistics sendCuttingData(UsbDeviceHandle device, IPattern pattern, IProgressMonitor monitor)
 			throws UsbException, InterruptedException {
 
-		ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+		long startTime = System.currentTimeMillis();
+		GpglCommandEncoder buffer = new GpglCommandEncoder();
+		CompletableFuture<Integer> pendingWrite = null;
 		int commandCounter = 0;
+		int totalCommandCounter = 0;
+		int batchCounter = 0;
+		double[] coordinates = null;
 		Collection<IPolyline> polylines = pattern.getPolylines(true);
 		SubMonitor subMonitor = SubMonitor.convert(monitor, polylines.size());
 		try {
 			for (IPolyline polyline : polylines) {
-				commandCounter += writePolylineCuttingData(polyline, buffer);
+				coordinates = polyline.getCoordinates(coordinates);
+				commandCounter += writePolylineCuttingData(coordinates, polyline.getPointCount(), buffer);
 
 				if (commandCounter >= MINIMUM_COMMAND_LENGTH) {
-					device.bulkWrite(ENDPOINT_ID_COMMAND, buffer.toByteArray(),
-							WRITE_COMMAND_TIMEOUT_MILLIS * commandCounter);
-					waitWhileBusy(device, subMonitor);
+					// the next batch has been encoded while the previous one
+					// was in flight, so only wait for its completion now
+					awaitWrite(pendingWrite);
+					pendingWrite = writeBatch(device, buffer, commandCounter);
+					totalCommandCounter += commandCounter;
+					++batchCounter;
 					commandCounter = 0;
-					buffer = new ByteArrayOutputStream();
+					buffer.reset();
+
+					if ((batchCounter % STATUS_CHECK_BATCH_INTERVAL) == 0) {
+						// the status command is queued behind the batch on the
+						// same endpoint, so the batch has to be written first
+						// for the status timeout to apply to the query only
+						awaitWrite(pendingWrite);
+						pendingWrite = null;
+						DeviceState state = queryDeviceState(device, subMonitor);
+						if ((state != DeviceState.Ready) && (state != DeviceState.Busy)
+								&& (state != DeviceState.Initializing)) {
+							return new CuttingStatistics(totalCommandCounter, batchCounter,
+									System.currentTimeMillis() - startTime, 0, state);
+						}
+					}
 				}
 
 				subMonitor.worked(1);
 			}
 
 			if (buffer.size() > 0) {
-				device.bulkWrite(ENDPOINT_ID_COMMAND, buffer.toByteArray(),
-						WRITE_COMMAND_TIMEOUT_MILLIS * commandCounter);
-				waitWhileBusy(device, subMonitor);
+				awaitWrite(pendingWrite);
+				pendingWrite = writeBatch(device, buffer, commandCounter);
+				totalCommandCounter += commandCounter;
+				++batchCounter;
 			}
+			awaitWrite(pendingWrite);
+			pendingWrite = null;
+
+			// drain the plotter and measure the status round trip time which
+			// is the basis for the stop-and-wait idle time estimation; a
+			// plotter still busy after the deadline is reported as such
+			long drainDeadline = System.currentTimeMillis() + DRAIN_TIMEOUT_MILLIS;
+			long queryTimeMillis = 0;
+			int queryCounter = 0;
+			DeviceState state;
+			do {
+				if (queryCounter > 0) {
+					Thread.sleep(STATUS_POLLING_INTERVAL_MILLIS);
+				}
+				long queryStartTime = System.currentTimeMillis();
+				state = queryDeviceState(device, subMonitor);
+				queryTimeMillis += System.currentTimeMillis() - queryStartTime;
+				++queryCounter;
+			} while (((state == DeviceState.Busy) || (state == DeviceState.Initializing))
+					&& (System.currentTimeMillis() < drainDeadline));
+
+			// in stop-and-wait mode the plotter has been idle after every batch
+			// but the last one until the next poll detected it as ready
+			long idleMillisPerBatch = STATUS_POLLING_INTERVAL_MILLIS / 2 + queryTimeMillis / queryCounter;
+			long estimatedIdleMillis = Math.max(0, batchCounter - 1) * idleMillisPerBatch;
+
+			return new CuttingStatistics(totalCommandCounter, batchCounter, System.currentTimeMillis() - startTime,
+					estimatedIdleMillis, state);
 		} finally {
+			if (pendingWrite != null) {
+				// the cut has been aborted, so the remaining data is not
+				// needed; waiting for it could take seconds and must not hide
+				// the original exception
+				pendingWrite.cancel(false);
+			}
 			monitor.done();
 		}
 	}
 
-	private int writePolylineCuttingData(IPolyline polyline, ByteArrayOutputStream buffer) {
+	/**
+	 * Writes a batch of cutting commands, asynchronously if possible. Without
+	 * asynchronous transfers the batch is written before returning, which
+	 * only loses the overlap with encoding the next batch.
+	 */
+	private static CompletableFuture<Integer> writeBatch(UsbDeviceHandle device, GpglCommandEncoder buffer,
+			int commandCounter) throws UsbException {
+
+		int timeoutMillis = WRITE_COMMAND_TIMEOUT_MILLIS * commandCounter;
+		if (device.isAsyncTransferAvailable()) {
+			return device.bulkWriteAsync(ENDPOINT_ID_COMMAND, buffer.asByteBuffer(), timeoutMillis);
+		}
+		ByteBuffer data = buffer.asByteBuffer();
+		int length = data.remaining();
+		device.bulkWrite(ENDPOINT_ID_COMMAND, data, timeoutMillis);
+		return CompletableFuture.completedFuture(length);
+	}
 
-		Iterator<IPoint> iterator = polyline.iterator();
+	private static void awaitWrite(CompletableFuture<Integer> write) throws UsbException, InterruptedException {
 
-		IPoint point = iterator.next();
-		int x = getX(point);
-		int y = getY(point);
-		String command = String.format("M%d.00,%d.00", x, y);
-		appendCommand(buffer, command);
+		if (write == null) {
+			return;
+		}
+		try {
+			write.get();
+		} catch (ExecutionException e) {
+			if (e.getCause() instanceof UsbException) {
+				throw (UsbException) e.getCause();
+			}
+			throw new UsbException(e.getCause().getMessage(), 0);
+		}
+	}
+
+	private int writePolylineCuttingData(double[] coordinates, int pointCount, GpglCommandEncoder buffer) {
+
+		if (pointCount == 0) {
+			return 0;
+		}
+
+		int x = getX(coordinates, 0);
+		int y = getY(coordinates, 0);
+		buffer.appendCoordinateCommand(MOVE, x, y);
 
 		int commandCounter = 1;
 		int lastX = x;
 		int lastY = y;
 
-		while (iterator.hasNext()) {
-			point = iterator.next();
-			x = getX(point);
-			y = getY(point);
+		for (int vertex = 1; vertex < pointCount; ++vertex) {
+			x = getX(coordinates, vertex);
+			y = getY(coordinates, vertex);
 			if ((x != lastX) || (y != lastY)) {
-				command = String.format("D%d.00,%d.00", x, y);
-				appendCommand(buffer, command);
+				buffer.appendCoordinateCommand(DRAW, x, y);
 				++commandCounter;
 				lastX = x;
 				lastY = y;
 			}
 		}
-		finishCommand(buffer);
+		buffer.finishCommand();
 
 		return commandCounter;
 	}
 
-	private int getX(IPoint point) {
+	private int getX(double[] coordinates, int vertex) {
 
 		final int offsetX = 0;
 		final int minX = 0;
 		final int maxX = 6095;
 
-		int x = (int) Math.round(point.getY()) + offsetX;
+		int x = (int) Math.round(coordinates[2 * vertex + 1]) + offsetX;
 		if (x < minX) {
 			x = minX;
 		}
@@ -412,13 +511,13 @@ public class CameoCutter implements IStatefulCutter {
 		return x;
 	}
 
-	private int getY(IPoint point) {
+	private int getY(double[] coordinates, int vertex) {
 
 		final int offsetY = 0;
 		final int minY = 0;
 		final int maxY = 6095;
 
-		int y = (int) Math.round(point.getX()) + offsetY;
+		int y = (int) Math.round(coordinates[2 * vertex]) + offsetY;
 		if (y < minY) {
 			y = minY;
 		}
@@ -430,11 +529,11 @@ public class CameoCutter implements IStatefulCutter {
 
 	private void feedMediaOut(UsbDeviceHandle device, IProgressMonitor monitor) throws UsbException {
 
-		ByteArrayOutputStream buffer = new ByteArrayOutputStream();
-		appendCommand(buffer, FEED_OUT);
-		appendCommand(buffer, HOME_CUTTER_2);
-		finishCommand(buffer);
-		device.bulkWrite(ENDPOINT_ID_COMMAND, buffer.toByteArray(), WRITE_COMMAND_TIMEOUT_MILLIS);
+		GpglCommandEncoder buffer = new GpglCommandEncoder(16);
+		buffer.appendCommand(FEED_OUT);
+		buffer.appendCommand(HOME_CUTTER_2);
+		buffer.finishCommand();
+		device.bulkWrite(ENDPOINT_ID_COMMAND, buffer.asByteBuffer(), WRITE_COMMAND_TIMEOUT_MILLIS);
 	}
 
 	private void sendCuttingParameter(UsbDeviceHandle device, Map<String, Object> parameterMap,
@@ -450,38 +549,23 @@ public class CameoCutter implements IStatefulCutter {
 		int cuttingSpeed = (Integer) parameterMap.get(CameoCutterDescriptor.PARAM_SPEED);
 		int cuttingPressure = (Integer) parameterMap.get(CameoCutterDescriptor.PARAM_PRESSURE);
 
-		ByteArrayOutputStream buffer = new ByteArrayOutputStream();
-		appendCommand(buffer, String.format(SET_MEDIA_TYPE, mediaCode));
-		appendCommand(buffer, String.format(SET_CUTTING_SPEED, cuttingSpeed));
-		appendCommand(buffer, String.format(SET_CUTTING_PRESSURE, cuttingPressure));
-		appendCommand(buffer, String.format(SET_CUTTING_OFFSET, cuttingOffset));
-		appendCommand(buffer, String.format(SET_TRACK_ENHANCING, 0));
-		appendCommand(buffer, String.format(SET_MEDIA_ORIENTATION, 0));
-		finishCommand(buffer);
-		device.bulkWrite(ENDPOINT_ID_COMMAND, buffer.toByteArray(), WRITE_COMMAND_TIMEOUT_MILLIS);
+		GpglCommandEncoder buffer = new GpglCommandEncoder(64);
+		buffer.appendCommand(SET_MEDIA_TYPE, mediaCode);
+		buffer.appendCommand(SET_CUTTING_SPEED, cuttingSpeed);
+		buffer.appendCommand(SET_CUTTING_PRESSURE, cuttingPressure);
+		buffer.appendCommand(SET_CUTTING_OFFSET, cuttingOffset);
+		buffer.appendCommand(SET_TRACK_ENHANCING, 0);
+		buffer.appendCommand(SET_MEDIA_ORIENTATION, 0);
+		buffer.finishCommand();
+		device.bulkWrite(ENDPOINT_ID_COMMAND, buffer.asByteBuffer(), WRITE_COMMAND_TIMEOUT_MILLIS);
 	}
 
 	private void sendCutterHome(UsbDeviceHandle device, IProgressMonitor monitor) throws UsbException {
 
-		ByteArrayOutputStream buffer = new ByteArrayOutputStream();
-		appendCommand(buffer, HOME_CUTTER_1);
-		finishCommand(buffer);
-		device.bulkWrite(ENDPOINT_ID_COMMAND, buffer.toByteArray(), WRITE_COMMAND_TIMEOUT_MILLIS);
-	}
-
-	private static void appendCommand(ByteArrayOutputStream buffer, String command) {
-		try {
-			if (buffer.size() > 0) {
-				buffer.write(",".getBytes(COMMAND_ENCODING));
-			}
-			buffer.write(command.getBytes(COMMAND_ENCODING));
-		} catch (IOException e) {
-			// cannot happen
-		}
-	}
-
-	private static void finishCommand(ByteArrayOutputStream buffer) {
-		buffer.write(COMMAND_DELIMITER);
+		GpglCommandEncoder buffer = new GpglCommandEncoder(16);
+		buffer.appendCommand(HOME_CUTTER_1);
+		buffer.finishCommand();
+		device.bulkWrite(ENDPOINT_ID_COMMAND, buffer.asByteBuffer(), WRITE_COMMAND_TIMEOUT_MILLIS);
 	}
 
 	private DeviceState waitWhileBusy(UsbDeviceHandle device, IProgressMonitor monitor)
@@ -490,7 +574,7 @@ public class CameoCutter implements IStatefulCutter {
 		DeviceState state = queryDeviceState(device, monitor);
 		while ((state == DeviceState.Busy) || (state == DeviceState.Initializing)) {
 			try {
-				Thread.sleep(200);
+				Thread.sleep(STATUS_POLLING_INTERVAL_MILLIS);
 			} catch (InterruptedException e) {
 				// nothing to do
 			}
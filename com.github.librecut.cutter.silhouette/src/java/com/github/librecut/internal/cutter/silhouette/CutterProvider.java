@@ -22,33 +22,128 @@ import java.text.MessageFormat;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
 import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 import org.eclipse.core.runtime.IProgressMonitor;
+import org.eclipse.core.runtime.IStatus;
 import org.eclipse.core.runtime.NullProgressMonitor;
+import org.eclipse.core.runtime.Platform;
+import org.eclipse.core.runtime.Status;
+import org.osgi.framework.Bundle;
+import org.osgi.framework.FrameworkUtil;
 
 import com.github.librecut.api.cutter.model.ICutter;
+import com.github.librecut.api.cutter.model.ICutter.DeviceState;
 import com.github.librecut.api.cutter.model.ICutterDescriptor;
-import com.github.librecut.common.cutter.spi.AbstractPollingCutterProvider;
+import com.github.librecut.common.cutter.spi.AbstractEventDrivenCutterProvider;
 import com.github.librecut.common.usb.Usb;
 import com.github.librecut.common.usb.Usb.IDeviceMatcher;
+import com.github.librecut.common.usb.Usb.IHotplugListener;
 import com.github.librecut.common.usb.UsbDeviceDescriptor;
+import com.github.librecut.common.usb.UsbDeviceSession;
 import com.github.librecut.common.usb.UsbException;
 
-public class CutterProvider extends AbstractPollingCutterProvider {
+public class CutterProvider extends AbstractEventDrivenCutterProvider {
 
 	private static final int VENDORID_GRAPHTEC = 0x0b4d;
 	private static final int PRODUCTID_SILHOUETTE_CAMEO = 0x1121;
 
 	private static final int TIME_BETWEEN_UPDATES_MILLIS = 15000;
+	private static final int TIME_BETWEEN_STATE_UPDATES_MILLIS = 3000;
+
+	private static final int INTERFACE_ID = 0;
+
+	private static final int MAXIMUM_PARALLEL_PROBES = 4;
+	private static final long PROBE_DEADLINE_MILLIS = 2000;
+	private static final int MAXIMUM_PENDING_PROBES = 16;
+	private static final long PROBE_THREAD_KEEP_ALIVE_SECONDS = 30;
+	private static final long MAXIMUM_PROBE_BACK_OFF_MILLIS = 60000;
+
+	private final CameoCutterDescriptor cameoDescriptor;
+	private final Map<UsbDeviceDescriptor, UsbDeviceSession> sessionMap;
+	/**
+	 * Cutters of the connected devices, only accessed by detection rounds.
+	 */
+	private final Map<UsbDeviceDescriptor, ProbedCutter> cutterMap;
+	private final IHotplugListener hotplugListener;
+	private final ExecutorService probeExecutor;
 
 	public CutterProvider() {
-		super(Messages.CutterProvider_CutterSearchJobDescription, TIME_BETWEEN_UPDATES_MILLIS);
+		super(Messages.CutterProvider_CutterSearchJobDescription, TIME_BETWEEN_UPDATES_MILLIS,
+				TIME_BETWEEN_STATE_UPDATES_MILLIS);
+
+		this.cameoDescriptor = new CameoCutterDescriptor();
+		this.sessionMap = new HashMap<>();
+		this.cutterMap = new HashMap<>();
+		this.probeExecutor = createProbeExecutor();
+		this.hotplugListener = new IHotplugListener() {
+
+			@Override
+			public void handleDeviceAttached(UsbDeviceDescriptor descriptor) {
+				handleDeviceChange();
+			}
+
+			@Override
+			public void handleDeviceDetached(UsbDeviceDescriptor descriptor) {
+				handleDeviceChange();
+			}
+		};
+	}
+
+	@Override
+	protected boolean startDeviceChangeNotification() {
+
+		Usb usb = Activator.getDefault().getUsb();
+		if ((usb == null) || !usb.isHotplugSupported()) {
+			return false;
+		}
+		try {
+			usb.addHotplugListener(VENDORID_GRAPHTEC, PRODUCTID_SILHOUETTE_CAMEO, hotplugListener);
+			return true;
+		} catch (UsbException e) {
+			logError("Cannot register for USB hotplug notifications, falling back to polling.", e);
+			return false;
+		}
+	}
+
+	@Override
+	protected void stopDeviceChangeNotification() {
+
+		Usb usb = Activator.getDefault().getUsb();
+		if (usb != null) {
+			usb.removeHotplugListener(hotplugListener);
+		}
+	}
+
+	@Override
+	public void shutdown() {
+
+		super.shutdown();
+		probeExecutor.shutdownNow();
+		updateSessions(Collections.<UsbDeviceDescriptor>emptyList(), null);
 	}
 
 	@Override
 	public Collection<ICutterDescriptor> getSupportedCutters() {
-		return Collections.<ICutterDescriptor>singletonList(new CameoCutterDescriptor());
+		return Collections.<ICutterDescriptor>singletonList(cameoDescriptor);
 	}
 
 	@Override
@@ -67,10 +162,13 @@ public class CutterProvider extends AbstractPollingCutterProvider {
 				}
 			});
 
-			for (UsbDeviceDescriptor descriptor : descriptorList) {
-				IStatefulCutter cutter = createCutter(descriptor, usb);
-				cutter.updateDeviceState(new NullProgressMonitor());
-				cutterList.add(cutter);
+			updateSessions(descriptorList, usb);
+			updateCutters(descriptorList, usb);
+
+			Collection<ProbedCutter> probedCutters = cutterMap.values();
+			probeDeviceStates(probedCutters);
+			for (ProbedCutter probedCutter : probedCutters) {
+				cutterList.add(probedCutter.cutter);
 			}
 
 		} catch (UsbException e) {
@@ -79,19 +177,220 @@ public class CutterProvider extends AbstractPollingCutterProvider {
 		return cutterList;
 	}
 
+	/**
+	 * Probes the cutters of the known devices only. The bus is enumerated on
+	 * hotplug events.
+	 */
+	@Override
+	protected Collection<ICutter> refreshCutterStates(Collection<ICutter> cutters, IProgressMonitor monitor)
+			throws InterruptedException {
+
+		Collection<ProbedCutter> probedCutters = cutterMap.values();
+		probeDeviceStates(probedCutters);
+		List<ICutter> cutterList = new ArrayList<>(probedCutters.size());
+		for (ProbedCutter probedCutter : probedCutters) {
+			cutterList.add(probedCutter.cutter);
+		}
+		return cutterList;
+	}
+
+	/**
+	 * Queries the states of all cutters concurrently. The round ends when all
+	 * probes have finished or the probe deadline has passed, so a hanging
+	 * device cannot delay the discovery of the others. Cutters whose probes
+	 * are still running or backing off keep their previous state. Another
+	 * detection round is requested when a late probe changes a state.
+	 */
+	private void probeDeviceStates(Collection<ProbedCutter> cutters) throws InterruptedException {
+
+		final AtomicBoolean roundFinished = new AtomicBoolean();
+		long now = System.nanoTime();
+		List<ProbedCutter> probedCutterList = new ArrayList<>(cutters.size());
+		for (final ProbedCutter probedCutter : cutters) {
+			if (!probedCutter.isProbeDue(now)) {
+				continue;
+			}
+			try {
+				probedCutter.probe = probeExecutor.submit(new Callable<Boolean>() {
+
+					@Override
+					public Boolean call() throws Exception {
+
+						IStatefulCutter cutter = probedCutter.cutter;
+						DeviceState previousState = cutter.getDeviceState();
+						cutter.updateDeviceState(new NullProgressMonitor());
+						boolean changed = !cutter.getDeviceState().equals(previousState);
+						if (changed && roundFinished.get()) {
+							requestDetection(0);
+						}
+						return changed;
+					}
+				});
+				probedCutterList.add(probedCutter);
+			} catch (RejectedExecutionException e) {
+				// too many probes are pending, keep the previous state
+			}
+		}
+
+		long deadline = now + TimeUnit.MILLISECONDS.toNanos(PROBE_DEADLINE_MILLIS);
+		List<Future<Boolean>> lateFutureList = new ArrayList<>();
+		try {
+			for (ProbedCutter probedCutter : probedCutterList) {
+				try {
+					probedCutter.probe.get(Math.max(0, deadline - System.nanoTime()), TimeUnit.NANOSECONDS);
+					probedCutter.resetBackOff();
+				} catch (TimeoutException e) {
+					// the probe continues in the background
+					probedCutter.backOff(now);
+					lateFutureList.add(probedCutter.probe);
+				} catch (ExecutionException e) {
+					logError("Cannot query the cutter state.", e.getCause());
+					probedCutter.backOff(now);
+				}
+			}
+		} catch (InterruptedException e) {
+			for (ProbedCutter probedCutter : probedCutterList) {
+				probedCutter.probe.cancel(true);
+			}
+			throw e;
+		} finally {
+			roundFinished.set(true);
+		}
+
+		// catch probes which finished after their timeout but before the end
+		// of the round was signaled
+		for (Future<Boolean> future : lateFutureList) {
+			if (future.isDone() && hasChangedState(future)) {
+				requestDetection(0);
+				break;
+			}
+		}
+	}
+
+	private static boolean hasChangedState(Future<Boolean> future) throws InterruptedException {
+
+		try {
+			return future.get().booleanValue();
+		} catch (ExecutionException | CancellationException e) {
+			return false;
+		}
+	}
+
+	private static ExecutorService createProbeExecutor() {
+
+		ThreadPoolExecutor executor = new ThreadPoolExecutor(MAXIMUM_PARALLEL_PROBES, MAXIMUM_PARALLEL_PROBES,
+				PROBE_THREAD_KEEP_ALIVE_SECONDS, TimeUnit.SECONDS,
+				new LinkedBlockingQueue<Runnable>(MAXIMUM_PENDING_PROBES),
+				new ThreadFactory() {
+
+					@Override
+					public Thread newThread(Runnable runnable) {
+
+						Thread thread = new Thread(runnable, "Silhouette cutter state probe");
+						thread.setDaemon(true);
+						return thread;
+					}
+				});
+		executor.allowCoreThreadTimeOut(true);
+		return executor;
+	}
+
+	/**
+	 * Keeps one USB session open for every connected cutter, so the cutters
+	 * can communicate with their devices without reopening them on every
+	 * status query or cut.
+	 */
+	private void updateSessions(Collection<UsbDeviceDescriptor> descriptors, Usb usb) {
+
+		Set<UsbDeviceDescriptor> descriptorSet = new HashSet<>(descriptors);
+		synchronized (sessionMap) {
+			Iterator<Entry<UsbDeviceDescriptor, UsbDeviceSession>> iterator = sessionMap.entrySet().iterator();
+			while (iterator.hasNext()) {
+				Entry<UsbDeviceDescriptor, UsbDeviceSession> entry = iterator.next();
+				if (!descriptorSet.contains(entry.getKey())) {
+					entry.getValue().close();
+					iterator.remove();
+				}
+			}
+			for (UsbDeviceDescriptor descriptor : descriptorSet) {
+				if (!sessionMap.containsKey(descriptor)) {
+					sessionMap.put(descriptor, usb.openSession(descriptor, INTERFACE_ID));
+				}
+			}
+		}
+	}
+
+	/**
+	 * Keeps one cutter for every connected device, so the state and the
+	 * probing history of a device survive between detection rounds.
+	 */
+	private void updateCutters(Collection<UsbDeviceDescriptor> descriptors, Usb usb) {
+
+		cutterMap.keySet().retainAll(new HashSet<>(descriptors));
+		for (UsbDeviceDescriptor descriptor : descriptors) {
+			if (!cutterMap.containsKey(descriptor)) {
+				IStatefulCutter cutter = createCutter(descriptor, usb);
+				if (cutter != null) {
+					cutterMap.put(descriptor, new ProbedCutter(cutter));
+				}
+			}
+		}
+	}
+
 	private IStatefulCutter createCutter(UsbDeviceDescriptor descriptor, Usb usb) {
 
 		switch (descriptor.getProductId()) {
 		case PRODUCTID_SILHOUETTE_CAMEO:
-			String instanceName = MessageFormat.format(Messages.CutterProvider_UsbCutterNamePattern, new CameoCutterDescriptor().getDescription(),
-					descriptor.getBusAddress());
-			return new CameoCutter(instanceName, usb, descriptor);
+			String instanceName = MessageFormat.format(Messages.CutterProvider_UsbCutterNamePattern,
+					cameoDescriptor.getDescription(), descriptor.getBusAddress());
+			return new CameoCutter(instanceName, cameoDescriptor, usb, descriptor);
 		default:
 			return null;
 		}
 	}
 
 	private void handleUsbDeviceListingError(UsbException e) {
-		// TODO implement error logging
+		logError("Cannot list the USB devices.", e);
+	}
+
+	private static void logError(String message, Throwable e) {
+
+		Bundle bundle = FrameworkUtil.getBundle(CutterProvider.class);
+		if (bundle != null) {
+			Platform.getLog(bundle).log(new Status(IStatus.ERROR, Activator.PLUGIN_ID, message, e));
+		}
+	}
+
+	/**
+	 * Cutter together with its last probe. A cutter whose probe misses the
+	 * deadline is not probed again until the probe has finished and a back-off
+	 * delay, doubled on every further miss, has passed.
+	 */
+	private static final class ProbedCutter {
+
+		private final IStatefulCutter cutter;
+
+		private Future<Boolean> probe;
+		private long backOffMillis;
+		private long nextProbeNanos;
+
+		ProbedCutter(IStatefulCutter cutter) {
+			this.cutter = cutter;
+		}
+
+		boolean isProbeDue(long nowNanos) {
+			return ((probe == null) || probe.isDone()) && ((nowNanos - nextProbeNanos) >= 0);
+		}
+
+		void backOff(long nowNanos) {
+
+			backOffMillis = Math.min(Math.max(2 * backOffMillis, PROBE_DEADLINE_MILLIS),
+					MAXIMUM_PROBE_BACK_OFF_MILLIS);
+			nextProbeNanos = nowNanos + TimeUnit.MILLISECONDS.toNanos(backOffMillis);
+		}
+
+		void resetBackOff() {
+			backOffMillis = 0;
+		}
 	}
 }
@@ -0,0 +1,87 @@
+/**
+ * Copyright (C) 2016 Gerhard Mitzner.
+ * 
+ * This file is part of LibreCut.
+ * 
+ * LibreCut is free software: you can redistribute it and/or modify it under the
+ * terms of the GNU Lesser General Public License as published by the Free
+ * Software Foundation, either version 3 of the License, or (at your option) any
+ * later version.
+ * 
+ * LibreCut is distributed in the hope that it will be useful, but WITHOUT ANY
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR
+ * A PARTICULAR PURPOSE. See the GNU Lesser General Public License for more
+ * details.
+ * 
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with LibreCut. If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.github.librecut.internal.cutter.silhouette;
+
+import com.github.librecut.api.cutter.model.ICutter.DeviceState;
+
+/**
+ * Statistics of a single streamed cut. Beside the achieved throughput it
+ * carries an estimation of the time the plotter would have been idle if every
+ * batch of cutting commands had been followed by waiting until the plotter
+ * becomes ready again.
+ */
+public class CuttingStatistics {
+
+	private final int commandCount;
+	private final int batchCount;
+	private final long elapsedMillis;
+	private final long estimatedStopAndWaitIdleMillis;
+	private final DeviceState deviceState;
+
+	public CuttingStatistics(int commandCount, int batchCount, long elapsedMillis,
+			long estimatedStopAndWaitIdleMillis, DeviceState deviceState) {
+
+		this.commandCount = commandCount;
+		this.batchCount = batchCount;
+		this.elapsedMillis = elapsedMillis;
+		this.estimatedStopAndWaitIdleMillis = estimatedStopAndWaitIdleMillis;
+		this.deviceState = deviceState;
+	}
+
+	public int getCommandCount() {
+		return commandCount;
+	}
+
+	public int getBatchCount() {
+		return batchCount;
+	}
+
+	public long getElapsedMillis() {
+		return elapsedMillis;
+	}
+
+	public long getEstimatedStopAndWaitIdleMillis() {
+		return estimatedStopAndWaitIdleMillis;
+	}
+
+	/**
+	 * Returns the device state observed when the cutting data was drained, or
+	 * the first state which has caused the streaming to be aborted.
+	 * 
+	 * @return the last observed device state.
+	 */
+	public DeviceState getDeviceState() {
+		return deviceState;
+	}
+
+	public double getCommandsPerSecond() {
+
+		if (elapsedMillis <= 0) {
+			return 0.0d;
+		}
+		return commandCount * 1000.0d / elapsedMillis;
+	}
+
+	@Override
+	public String toString() {
+		return String.format("%d commands in %d batches sent within %d ms (%.1f commands/s), "
+				+ "estimated idle time in stop-and-wait mode: %d ms", commandCount, batchCount, elapsedMillis,
+				getCommandsPerSecond(), estimatedStopAndWaitIdleMillis);
+	}
+}
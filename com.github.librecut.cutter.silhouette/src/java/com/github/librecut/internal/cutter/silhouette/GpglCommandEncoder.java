@@ -0,0 +1,187 @@
+/**
+ * Copyright (C) 2016 Gerhard Mitzner.
+ * 
+ * This file is part of LibreCut.
+ * 
+ * LibreCut is free software: you can redistribute it and/or modify it under the
+ * terms of the GNU Lesser General Public License as published by the Free
+ * Software Foundation, either version 3 of the License, or (at your option) any
+ * later version.
+ * 
+ * LibreCut is distributed in the hope that it will be useful, but WITHOUT ANY
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR
+ * A PARTICULAR PURPOSE. See the GNU Lesser General Public License for more
+ * details.
+ * 
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with LibreCut. If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.github.librecut.internal.cutter.silhouette;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+/**
+ * Reusable encoder for GPGL command sequences. Commands and their integer
+ * arguments are written as ASCII directly into a growable byte array, so
+ * encoding cutting data does not create any temporary strings or byte arrays.
+ * Consecutive commands are separated by commas and a command sequence is
+ * terminated by {@link #finishCommand()}.
+ */
+public class GpglCommandEncoder {
+
+	private static final byte COMMAND_SEPARATOR = (byte) ',';
+	private static final byte COMMAND_DELIMITER = (byte) 0x03;
+	private static final byte MINUS = (byte) '-';
+	private static final byte[] DECIMAL_ZEROS = new byte[] { (byte) '.', (byte) '0', (byte) '0' };
+
+	private static final int DEFAULT_CAPACITY = 4096;
+	private static final int MAX_INT_DIGITS = 10;
+
+	private byte[] buffer;
+	private int size;
+
+	public GpglCommandEncoder() {
+		this(DEFAULT_CAPACITY);
+	}
+
+	public GpglCommandEncoder(int initialCapacity) {
+		this.buffer = new byte[Math.max(initialCapacity, 16)];
+	}
+
+	/**
+	 * Appends a command without arguments. The command must consist of ASCII
+	 * characters only.
+	 */
+	public GpglCommandEncoder appendCommand(String command) {
+
+		appendSeparator();
+		appendAscii(command);
+		return this;
+	}
+
+	/**
+	 * Appends a command with a single integer argument, e.g. <code>FW112</code>.
+	 */
+	public GpglCommandEncoder appendCommand(String command, int value) {
+
+		appendSeparator();
+		appendAscii(command);
+		appendInt(value);
+		return this;
+	}
+
+	/**
+	 * Appends a command with two integer arguments, e.g. <code>Z6095,6095</code>.
+	 */
+	public GpglCommandEncoder appendCommand(String command, int value1, int value2) {
+
+		appendSeparator();
+		appendAscii(command);
+		appendInt(value1);
+		ensureCapacity(1);
+		buffer[size++] = COMMAND_SEPARATOR;
+		appendInt(value2);
+		return this;
+	}
+
+	/**
+	 * Appends a move or draw command with fixed point coordinates, e.g.
+	 * <code>D120.00,345.00</code>.
+	 */
+	public GpglCommandEncoder appendCoordinateCommand(char command, int x, int y) {
+
+		appendSeparator();
+		ensureCapacity(1);
+		buffer[size++] = (byte) command;
+		appendInt(x);
+		appendAscii(DECIMAL_ZEROS);
+		ensureCapacity(1);
+		buffer[size++] = COMMAND_SEPARATOR;
+		appendInt(y);
+		appendAscii(DECIMAL_ZEROS);
+		return this;
+	}
+
+	public GpglCommandEncoder finishCommand() {
+
+		ensureCapacity(1);
+		buffer[size++] = COMMAND_DELIMITER;
+		return this;
+	}
+
+	public int size() {
+		return size;
+	}
+
+	public void reset() {
+		size = 0;
+	}
+
+	public byte[] toByteArray() {
+		return Arrays.copyOf(buffer, size);
+	}
+
+	/**
+	 * Returns a buffer view of the encoded bytes without copying them. The view
+	 * becomes invalid as soon as this encoder is modified.
+	 */
+	public ByteBuffer asByteBuffer() {
+		return ByteBuffer.wrap(buffer, 0, size);
+	}
+
+	private void appendSeparator() {
+
+		if (size > 0) {
+			ensureCapacity(1);
+			buffer[size++] = COMMAND_SEPARATOR;
+		}
+	}
+
+	private void appendAscii(String text) {
+
+		int length = text.length();
+		ensureCapacity(length);
+		for (int i = 0; i < length; ++i) {
+			buffer[size++] = (byte) text.charAt(i);
+		}
+	}
+
+	private void appendAscii(byte[] text) {
+
+		ensureCapacity(text.length);
+		System.arraycopy(text, 0, buffer, size, text.length);
+		size += text.length;
+	}
+
+	private void appendInt(int value) {
+
+		ensureCapacity(MAX_INT_DIGITS + 1);
+
+		long remainder = value;
+		if (remainder < 0) {
+			buffer[size++] = MINUS;
+			remainder = -remainder;
+		}
+
+		int digitCount = 1;
+		for (long limit = 10; (digitCount < MAX_INT_DIGITS) && (remainder >= limit); limit *= 10) {
+			++digitCount;
+		}
+
+		int end = size + digitCount;
+		for (int i = end - 1; i >= size; --i) {
+			buffer[i] = (byte) ('0' + (int) (remainder % 10));
+			remainder /= 10;
+		}
+		size = end;
+	}
+
+	private void ensureCapacity(int additionalBytes) {
+
+		int requiredCapacity = size + additionalBytes;
+		if (requiredCapacity > buffer.length) {
+			buffer = Arrays.copyOf(buffer, Math.max(requiredCapacity, buffer.length * 2));
+		}
+	}
+}
@@ -20,50 +20,65 @@ package com.github.librecut.internal.svg;
 
 import java.awt.Shape;
 import java.awt.geom.AffineTransform;
-import java.awt.geom.PathIterator;
 import java.awt.geom.Rectangle2D;
 import java.util.ArrayList;
 import java.util.BitSet;
-import java.util.Collection;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
 
 import com.github.librecut.api.design.model.IDesign;
 import com.github.librecut.api.design.model.IPattern;
-import com.github.librecut.api.design.model.IPoint;
-import com.github.librecut.common.design.model.Point;
 
 public class Design implements IDesign {
 
 	private static final double SVG_DPI = 90.0d;
 	private static final double FLATNESS = 0.5d;
 
+	/**
+	 * Shapes are flattened with powers of two as flatness, so zooming only
+	 * requires flattening again when the required flatness crosses a power of
+	 * two.
+	 */
+	private static final int MIN_FLATNESS_EXPONENT = -20;
+	private static final int MAX_FLATNESS_EXPONENT = 20;
+	private static final int MAX_CACHED_FLATNESS_LEVELS = 3;
+
 	private final byte[] svgContents;
 	private final Shape[] shapes;
 	private final BitSet polylineEnabledFlags;
+	private final Rectangle2D border;
+	private final Map<Integer, FlattenedShapes> flattenedShapesCache;
 
 	public Design(byte[] svgContents, Shape[] shapes) {
+		this(svgContents, shapes, null);
+	}
+
+	public Design(byte[] svgContents, Shape[] shapes, BitSet polylineEnabledFlags) {
 
 		this.svgContents = svgContents;
 		this.shapes = shapes;
+		this.flattenedShapesCache = new LinkedHashMap<Integer, FlattenedShapes>(4, 0.75f, true) {
 
-		final int[] counters = new int[1];
-		IPointListHandler handler = new IPointListHandler() {
+			private static final long serialVersionUID = 1L;
 
 			@Override
-			public void handlePointList(List<IPoint> pointList, int shapeIndex) {
-				++counters[0];
+			protected boolean removeEldestEntry(Entry<Integer, FlattenedShapes> eldest) {
+				return size() > MAX_CACHED_FLATNESS_LEVELS;
 			}
 		};
-		renderShapes(shapes, new AffineTransform(), handler);
-		this.polylineEnabledFlags = new BitSet(counters[0]);
-		this.polylineEnabledFlags.set(0, counters[0], true);
-	}
 
-	public Design(byte[] svgContents, Shape[] shapes, BitSet polylineEnabledFlags) {
-
-		this.svgContents = svgContents;
-		this.shapes = shapes;
-		this.polylineEnabledFlags = polylineEnabledFlags;
+		// the polylines flattened at import serve patterns at the original size
+		FlattenedShapes flattenedShapes = getFlattenedShapes(FLATNESS);
+		this.border = getBorder(shapes, flattenedShapes);
+		if (polylineEnabledFlags == null) {
+			int polylineCount = flattenedShapes.getPolylineCount();
+			this.polylineEnabledFlags = new BitSet(polylineCount);
+			this.polylineEnabledFlags.set(0, polylineCount, true);
+		} else {
+			this.polylineEnabledFlags = polylineEnabledFlags;
+		}
 	}
 
 	public byte[] getSvgContents() {
@@ -78,47 +93,48 @@ public class Design implements IDesign {
 	public IPattern createPattern(double rotationAngle, double scaling, boolean mirrorPattern, double dpiX,
 			double dpiY) {
 
-		List<Shape> enabledShapeList = getEnabledShapeList();
-
-		AffineTransform transformation = getTransformation(enabledShapeList, rotationAngle, scaling, mirrorPattern,
-				dpiX, dpiY);
-
-		final List<Polyline> polylineList = new ArrayList<Polyline>(shapes.length);
-		IPointListHandler handler = new IPointListHandler() {
-
-			@Override
-			public void handlePointList(List<IPoint> pointList, int shapeIndex) {
-
-				polylineList.add(new Polyline(pointList, polylineList.size(), Design.this));
-			}
-		};
-		renderShapes(shapes, transformation, handler);
+		AffineTransform transformation = getTransformation(border, rotationAngle, scaling, mirrorPattern, dpiX,
+				dpiY);
+
+		// rotation and mirroring keep distances, so the largest scale factor
+		// determines which flatness is required in design coordinates
+		double scaleFactor = Math.abs(scaling) * Math.max(dpiX, dpiY) / SVG_DPI;
+		FlattenedShapes flattenedShapes = getFlattenedShapes(FLATNESS / scaleFactor);
+
+		// all polylines share the coordinate array of the pattern
+		double[] coordinates = flattenedShapes.transform(transformation);
+		int polylineCount = flattenedShapes.getPolylineCount();
+		List<Polyline> polylineList = new ArrayList<Polyline>(polylineCount);
+		for (int i = 0; i < polylineCount; ++i) {
+			polylineList.add(new Polyline(coordinates, flattenedShapes.getPolylineStart(i),
+					flattenedShapes.getPointCount(i), i, this));
+		}
 
 		return new Pattern(polylineList, polylineEnabledFlags, dpiX, dpiY);
 	}
 
-	private List<Shape> getEnabledShapeList() {
-
-		final BitSet shapeEnabledFlags = new BitSet(polylineEnabledFlags.size());
-		IPointListHandler handler = new IPointListHandler() {
+	/**
+	 * Returns the shapes flattened with the largest power of two which is not
+	 * larger than the requested flatness.
+	 */
+	private FlattenedShapes getFlattenedShapes(double flatness) {
 
-			@Override
-			public void handlePointList(List<IPoint> pointList, int shapeIndex) {
-				shapeEnabledFlags.set(shapeIndex);
-			}
-		};
-		renderShapes(shapes, new AffineTransform(), handler);
+		int exponent = MAX_FLATNESS_EXPONENT;
+		if (flatness < Math.scalb(1.0d, MAX_FLATNESS_EXPONENT)) {
+			exponent = Math.max(MIN_FLATNESS_EXPONENT, Math.getExponent(flatness));
+		}
 
-		List<Shape> shapeList = new ArrayList<Shape>(shapes.length);
-		for (int i = 0; i < shapes.length; ++i) {
-			if (shapeEnabledFlags.get(i)) {
-				shapeList.add(shapes[i]);
+		synchronized (flattenedShapesCache) {
+			FlattenedShapes flattenedShapes = flattenedShapesCache.get(exponent);
+			if (flattenedShapes == null) {
+				flattenedShapes = FlattenedShapes.flatten(shapes, Math.scalb(1.0d, exponent));
+				flattenedShapesCache.put(exponent, flattenedShapes);
 			}
+			return flattenedShapes;
 		}
-		return shapeList;
 	}
 
-	private static AffineTransform getTransformation(List<Shape> shapeList, double rotationAngle, double scaling,
+	private static AffineTransform getTransformation(Rectangle2D border, double rotationAngle, double scaling,
 			boolean mirrorPattern, double dpiX, double dpiY) {
 
 		AffineTransform transformation = AffineTransform.getScaleInstance(scaling * dpiX / SVG_DPI,
@@ -127,61 +143,26 @@ public class Design implements IDesign {
 		if (mirrorPattern) {
 			transformation.scale(-1.0d, 1.0d);
 		}
-		Rectangle2D border = getBorder(shapeList);
 		transformation.translate(-border.getCenterX(), -border.getCenterY());
 		return transformation;
 	}
 
-	private static Rectangle2D getBorder(Collection<Shape> shapes) {
+	/**
+	 * Returns the untransformed bounds of all shapes which produce polylines.
+	 */
+	private static Rectangle2D getBorder(Shape[] shapes, FlattenedShapes flattenedShapes) {
 
 		Rectangle2D border = null;
-		for (Shape shape : shapes) {
+		for (int i = 0; i < shapes.length; ++i) {
+			if (!flattenedShapes.hasPolylines(i)) {
+				continue;
+			}
 			if (border == null) {
-				border = shape.getBounds2D();
+				border = shapes[i].getBounds2D();
 			} else {
-				border.add(shape.getBounds2D());
+				border.add(shapes[i].getBounds2D());
 			}
 		}
 		return border;
 	}
-
-	private static void renderShapes(Shape[] shapes, AffineTransform transformation, IPointListHandler handler) {
-
-		double[] coords = new double[2];
-		for (int shapeIndex = 0; shapeIndex < shapes.length; ++shapeIndex) {
-			double x0 = 0.0d;
-			double y0 = 0.0d;
-			List<IPoint> pointList = null;
-			PathIterator iterator = shapes[shapeIndex].getPathIterator(transformation, FLATNESS);
-			while (!iterator.isDone()) {
-				int operation = iterator.currentSegment(coords);
-				if (operation == PathIterator.SEG_CLOSE) {
-					pointList.add(new Point(x0, y0));
-				} else if (operation == PathIterator.SEG_MOVETO) {
-					handlePointList(handler, pointList, shapeIndex);
-
-					x0 = coords[0];
-					y0 = coords[1];
-					pointList = new ArrayList<IPoint>();
-					pointList.add(new Point(x0, y0));
-				} else {
-					pointList.add(new Point(coords[0], coords[1]));
-				}
-				iterator.next();
-			}
-			handlePointList(handler, pointList, shapeIndex);
-		}
-	}
-
-	private static void handlePointList(IPointListHandler handler, List<IPoint> pointList, int shapeIndex) {
-
-		if ((pointList != null) && (pointList.size() >= 2)) {
-			handler.handlePointList(pointList, shapeIndex);
-		}
-	}
-
-	private interface IPointListHandler {
-
-		void handlePointList(List<IPoint> pointList, int shapeIndex);
-	}
 }
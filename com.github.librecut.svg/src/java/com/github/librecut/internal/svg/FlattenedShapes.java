@@ -0,0 +1,125 @@
+/**
+ * Copyright (C) 2016 Gerhard Mitzner.
+ * 
+ * This file is part of LibreCut.
+ * 
+ * LibreCut is free software: you can redistribute it and/or modify it under the
+ * terms of the GNU Lesser General Public License as published by the Free
+ * Software Foundation, either version 3 of the License, or (at your option) any
+ * later version.
+ * 
+ * LibreCut is distributed in the hope that it will be useful, but WITHOUT ANY
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR
+ * A PARTICULAR PURPOSE. See the GNU Lesser General Public License for more
+ * details.
+ * 
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with LibreCut. If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.github.librecut.internal.svg;
+
+import java.awt.Shape;
+import java.awt.geom.AffineTransform;
+import java.awt.geom.PathIterator;
+
+import com.github.librecut.common.design.model.PackedPolylineBuilder;
+
+/**
+ * Polylines of a set of shapes, flattened in the coordinate system of the
+ * shapes with a fixed flatness. Rotating, mirroring and scaling the polylines
+ * only requires transforming their coordinates, as long as the scaled
+ * flatness is acceptable.
+ */
+final class FlattenedShapes {
+
+	private final double flatness;
+	private final double[] coordinates;
+
+	/**
+	 * Index of the first point of each polyline, polyline <code>i</code> ends
+	 * before point <code>polylineStarts[i + 1]</code>.
+	 */
+	private final int[] polylineStarts;
+
+	/**
+	 * Index of the first polyline of each shape, the polylines of shape
+	 * <code>i</code> end before index <code>shapePolylineStarts[i + 1]</code>.
+	 */
+	private final int[] shapePolylineStarts;
+
+	private FlattenedShapes(double flatness, double[] coordinates, int[] polylineStarts, int[] shapePolylineStarts) {
+
+		this.flatness = flatness;
+		this.coordinates = coordinates;
+		this.polylineStarts = polylineStarts;
+		this.shapePolylineStarts = shapePolylineStarts;
+	}
+
+	public static FlattenedShapes flatten(Shape[] shapes, double flatness) {
+
+		PackedPolylineBuilder builder = new PackedPolylineBuilder();
+		int[] shapePolylineStarts = new int[shapes.length + 1];
+		double[] coords = new double[2];
+		for (int shapeIndex = 0; shapeIndex < shapes.length; ++shapeIndex) {
+			double x0 = 0.0d;
+			double y0 = 0.0d;
+			PathIterator iterator = shapes[shapeIndex].getPathIterator(null, flatness);
+			while (!iterator.isDone()) {
+				int operation = iterator.currentSegment(coords);
+				if (operation == PathIterator.SEG_CLOSE) {
+					builder.addPoint(x0, y0);
+				} else if (operation == PathIterator.SEG_MOVETO) {
+					builder.endPolyline();
+
+					x0 = coords[0];
+					y0 = coords[1];
+					builder.addPoint(x0, y0);
+				} else {
+					builder.addPoint(coords[0], coords[1]);
+				}
+				iterator.next();
+			}
+			builder.endPolyline();
+			shapePolylineStarts[shapeIndex + 1] = builder.getPolylineCount();
+		}
+
+		double[] coordinates = builder.getCoordinates();
+		int polylineCount = builder.getPolylineCount();
+		int[] polylineStarts = new int[polylineCount + 1];
+		for (int i = 0; i < polylineCount; ++i) {
+			polylineStarts[i] = builder.getOffset(i);
+		}
+		polylineStarts[polylineCount] = coordinates.length / 2;
+		return new FlattenedShapes(flatness, coordinates, polylineStarts, shapePolylineStarts);
+	}
+
+	public double getFlatness() {
+		return flatness;
+	}
+
+	public int getPolylineCount() {
+		return polylineStarts.length - 1;
+	}
+
+	public int getPolylineStart(int polylineIndex) {
+		return polylineStarts[polylineIndex];
+	}
+
+	public int getPointCount(int polylineIndex) {
+		return polylineStarts[polylineIndex + 1] - polylineStarts[polylineIndex];
+	}
+
+	public boolean hasPolylines(int shapeIndex) {
+		return shapePolylineStarts[shapeIndex + 1] > shapePolylineStarts[shapeIndex];
+	}
+
+	/**
+	 * Returns the coordinates of all polylines transformed into a new array.
+	 */
+	public double[] transform(AffineTransform transformation) {
+
+		double[] transformedCoordinates = new double[coordinates.length];
+		transformation.transform(coordinates, 0, transformedCoordinates, 0, coordinates.length / 2);
+		return transformedCoordinates;
+	}
+}
@@ -49,13 +49,16 @@ public class Pattern implements IPattern {
 		Collection<IPolyline> polylines = getPolylines(enabledOnly);
 		double minX = Double.MAX_VALUE;
 		double minY = Double.MAX_VALUE;
+		double[] coordinates = null;
 		for (IPolyline polyline : polylines) {
-			for (IPoint point : polyline.getPointList()) {
-				if (point.getX() < minX) {
-					minX = point.getX();
+			coordinates = polyline.getCoordinates(coordinates);
+			int length = 2 * polyline.getPointCount();
+			for (int i = 0; i < length; i += 2) {
+				if (coordinates[i] < minX) {
+					minX = coordinates[i];
 				}
-				if (point.getY() < minY) {
-					minY = point.getY();
+				if (coordinates[i + 1] < minY) {
+					minY = coordinates[i + 1];
 				}
 			}
 		}
@@ -68,13 +71,16 @@ public class Pattern implements IPattern {
 		Collection<IPolyline> polylines = getPolylines(enabledOnly);
 		double maxX = Double.MIN_VALUE;
 		double maxY = Double.MIN_VALUE;
+		double[] coordinates = null;
 		for (IPolyline polyline : polylines) {
-			for (IPoint point : polyline.getPointList()) {
-				if (point.getX() > maxX) {
-					maxX = point.getX();
+			coordinates = polyline.getCoordinates(coordinates);
+			int length = 2 * polyline.getPointCount();
+			for (int i = 0; i < length; i += 2) {
+				if (coordinates[i] > maxX) {
+					maxX = coordinates[i];
 				}
-				if (point.getY() > maxY) {
-					maxY = point.getY();
+				if (coordinates[i + 1] > maxY) {
+					maxY = coordinates[i + 1];
 				}
 			}
 		}
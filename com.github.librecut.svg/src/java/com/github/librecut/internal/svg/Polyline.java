@@ -18,36 +18,20 @@
  */
 package com.github.librecut.internal.svg;
 
-import java.util.Collections;
-import java.util.Iterator;
-import java.util.List;
+import com.github.librecut.common.design.model.PackedPolyline;
 
-import com.github.librecut.api.design.model.IPoint;
-import com.github.librecut.api.design.model.IPolyline;
+public class Polyline extends PackedPolyline {
 
-public class Polyline implements IPolyline {
-
-	private final List<IPoint> pointList;
 	private final Design design;
 	private final int polylineIndex;
 
-	public Polyline(List<IPoint> pointList, int polylineIndex, Design design) {
+	public Polyline(double[] coordinates, int offset, int pointCount, int polylineIndex, Design design) {
 
-		this.pointList = pointList;
+		super(coordinates, offset, pointCount);
 		this.polylineIndex = polylineIndex;
 		this.design = design;
 	}
 
-	@Override
-	public Iterator<IPoint> iterator() {
-		return pointList.iterator();
-	}
-
-	@Override
-	public List<IPoint> getPointList() {
-		return Collections.unmodifiableList(pointList);
-	}
-
 	@Override
 	public boolean isEnabled() {
 		return design.getPolylineEnabledFlags().get(polylineIndex);
@@ -22,22 +22,38 @@ import java.awt.Shape;
 import java.awt.geom.PathIterator;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 
 import org.apache.batik.gvt.GraphicsNode;
+import org.eclipse.core.runtime.IProgressMonitor;
 import org.eclipse.core.runtime.IStatus;
 import org.eclipse.core.runtime.MultiStatus;
+import org.eclipse.core.runtime.OperationCanceledException;
 import org.eclipse.core.runtime.Status;
+import org.eclipse.core.runtime.SubMonitor;
 
 public final class ShapeExtractor {
 
 	private static final int MAX_SHAPE_BUFFER_SIZE = 7;
+	private static final int SHAPE_PROGRESS_RESOLUTION = 1000;
+	private static final long FINGERPRINT_MULTIPLIER = 0x9e3779b97f4a7c15L;
 
 	private ShapeExtractor() {
 		super();
 	}
 
-	public static IStatus extractShapeList(GraphicsNode rootNode, List<Shape> shapeList) {
+	/**
+	 * Paints the GVT tree to collect its shapes and removes duplicates. As the
+	 * number of shapes is unknown in advance, progress is reported
+	 * asymptotically while painting.
+	 */
+	public static IStatus extractShapeList(GraphicsNode rootNode, List<Shape> shapeList, IProgressMonitor monitor)
+			throws InterruptedException {
+
+		SubMonitor subMonitor = SubMonitor.convert(monitor, 100);
+		final SubMonitor paintMonitor = subMonitor.newChild(80);
 
 		final MultiStatus multiStatus = new MultiStatus(Constants.PLUGIN_ID, 0,
 				"Shape extraction failed due to multiple errors", null);
@@ -52,10 +68,20 @@ public final class ShapeExtractor {
 
 			@Override
 			public void addShape(Shape shape) {
+
+				if (paintMonitor.isCanceled()) {
+					throw new OperationCanceledException();
+				}
 				shapeCandidateList.add(shape);
+				paintMonitor.setWorkRemaining(SHAPE_PROGRESS_RESOLUTION);
+				paintMonitor.worked(1);
 			}
 		});
-		rootNode.primitivePaint(graphics);
+		try {
+			rootNode.primitivePaint(graphics);
+		} catch (OperationCanceledException e) {
+			throw new InterruptedException();
+		}
 
 		if (!multiStatus.isOK()) {
 			IStatus[] stati = multiStatus.getChildren();
@@ -65,39 +91,78 @@ public final class ShapeExtractor {
 			return multiStatus;
 		}
 
+		subMonitor.setWorkRemaining(20);
+		if (subMonitor.isCanceled()) {
+			throw new InterruptedException();
+		}
 		shapeList.addAll(removeDuplicates(shapeCandidateList));
+		subMonitor.worked(20);
 		return Status.OK_STATUS;
 	}
 
-	private static List<Shape> removeDuplicates(List<Shape> shapeList) {
+	/**
+	 * Removes shapes with the same geometry as a previous shape. Shapes are
+	 * bucketed by a fingerprint of their path, so only shapes with equal
+	 * fingerprints have to be compared segment by segment.
+	 */
+	static List<Shape> removeDuplicates(List<Shape> shapeList) {
 
+		double[] buffer1 = new double[MAX_SHAPE_BUFFER_SIZE];
+		double[] buffer2 = new double[MAX_SHAPE_BUFFER_SIZE];
+		Map<Long, List<Shape>> fingerprintMap = new HashMap<Long, List<Shape>>(2 * shapeList.size());
 		List<Shape> resultList = new ArrayList<Shape>(shapeList.size());
 		for (Shape shape : shapeList) {
-			if (!isContained(shape, resultList)) {
-				resultList.add(shape);
+			Long fingerprint = Long.valueOf(getFingerprint(shape, buffer1));
+			List<Shape> bucket = fingerprintMap.get(fingerprint);
+			if (bucket == null) {
+				bucket = new ArrayList<Shape>(1);
+				fingerprintMap.put(fingerprint, bucket);
+			} else if (isContained(shape, bucket, buffer1, buffer2)) {
+				continue;
 			}
+			bucket.add(shape);
+			resultList.add(shape);
 		}
 		return resultList;
 	}
 
-	private static boolean isContained(Shape shape, List<Shape> shapeList) {
+	/**
+	 * Computes a hash of the class, the segment types and the coordinates of
+	 * the given shape. Shapes considered equal by
+	 * {@link #isEqual(Shape, Shape, double[], double[])} have equal
+	 * fingerprints.
+	 */
+	private static long getFingerprint(Shape shape, double[] buffer) {
+
+		long hash = shape.getClass().getName().hashCode();
+		PathIterator iterator = shape.getPathIterator(null);
+		while (!iterator.isDone()) {
+			resetBuffer(buffer);
+			hash = FINGERPRINT_MULTIPLIER * hash + iterator.currentSegment(buffer);
+			for (int i = 0; i < buffer.length; ++i) {
+				hash = FINGERPRINT_MULTIPLIER * hash + Double.doubleToLongBits(buffer[i]);
+			}
+			iterator.next();
+		}
+		return hash ^ (hash >>> 32);
+	}
+
+	private static boolean isContained(Shape shape, List<Shape> shapeList, double[] buffer1, double[] buffer2) {
 
 		for (Shape otherShape : shapeList) {
-			if (isEqual(shape, otherShape)) {
+			if (isEqual(shape, otherShape, buffer1, buffer2)) {
 				return true;
 			}
 		}
 		return false;
 	}
 
-	private static boolean isEqual(Shape shape1, Shape shape2) {
+	private static boolean isEqual(Shape shape1, Shape shape2, double[] buffer1, double[] buffer2) {
 
 		if (!shape1.getClass().equals(shape2.getClass())) {
 			return false;
 		}
 
-		double[] buffer1 = new double[MAX_SHAPE_BUFFER_SIZE];
-		double[] buffer2 = new double[MAX_SHAPE_BUFFER_SIZE];
 		PathIterator iterator1 = shape1.getPathIterator(null);
 		PathIterator iterator2 = shape2.getPathIterator(null);
 		while (!iterator1.isDone()) {
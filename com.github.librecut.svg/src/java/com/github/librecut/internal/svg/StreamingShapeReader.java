@@ -0,0 +1,971 @@
+/**
+ * Copyright (C) 2016 Gerhard Mitzner.
+ * 
+ * This file is part of LibreCut.
+ * 
+ * LibreCut is free software: you can redistribute it and/or modify it under the
+ * terms of the GNU Lesser General Public License as published by the Free
+ * Software Foundation, either version 3 of the License, or (at your option) any
+ * later version.
+ * 
+ * LibreCut is distributed in the hope that it will be useful, but WITHOUT ANY
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR
+ * A PARTICULAR PURPOSE. See the GNU Lesser General Public License for more
+ * details.
+ * 
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with LibreCut. If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.github.librecut.internal.svg;
+
+import java.awt.Shape;
+import java.awt.geom.AffineTransform;
+import java.awt.geom.Arc2D;
+import java.awt.geom.Ellipse2D;
+import java.awt.geom.Line2D;
+import java.awt.geom.Path2D;
+import java.awt.geom.Point2D;
+import java.awt.geom.Rectangle2D;
+import java.awt.geom.RoundRectangle2D;
+import java.io.ByteArrayInputStream;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLResolver;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+
+import org.eclipse.core.runtime.IProgressMonitor;
+import org.eclipse.core.runtime.SubMonitor;
+
+/**
+ * Reads the shapes of plain SVG documents directly from the XML stream
+ * without building a DOM or GVT tree. Only basic shapes, paths, groups and
+ * transforms are supported. Documents using other features, e.g. text,
+ * references, style sheets, clipping or filters, are rejected, so they can be
+ * imported with the full SVG implementation instead.
+ * <p>
+ * The shapes are the same the GVT tree would paint, in the coordinate system
+ * of the root element's viewport.
+ * </p>
+ */
+public final class StreamingShapeReader {
+
+	private static final String SVG_NAMESPACE_URI = "http://www.w3.org/2000/svg";
+	private static final String XML_STYLESHEET_TARGET = "xml-stylesheet";
+
+	/**
+	 * Conversion of absolute units to pixels, based on the 96 dpi pixel size
+	 * of the Batik user agent.
+	 */
+	private static final double PIXELS_PER_INCH = 96.0d;
+
+	private static final int PROGRESS_RESOLUTION = 1000;
+
+	private final XMLStreamReader reader;
+	private final List<Shape> shapeList;
+	private final Deque<GraphicState> stateStack;
+
+	private StreamingShapeReader(XMLStreamReader reader) {
+
+		this.reader = reader;
+		this.shapeList = new ArrayList<Shape>();
+		this.stateStack = new ArrayDeque<GraphicState>();
+	}
+
+	/**
+	 * Reads the shapes of the given document.
+	 * 
+	 * @param svgContents
+	 *            the SVG document.
+	 * @param monitor
+	 *            the progress monitor.
+	 * @return the shapes without duplicates, or <code>null</code> if the
+	 *         document cannot be read by this reader.
+	 * @throws InterruptedException
+	 *             if the monitor has been canceled.
+	 */
+	public static List<Shape> readShapes(byte[] svgContents, IProgressMonitor monitor) throws InterruptedException {
+
+		SubMonitor subMonitor = SubMonitor.convert(monitor, PROGRESS_RESOLUTION);
+		XMLStreamReader reader = null;
+		try {
+			reader = createInputFactory().createXMLStreamReader(new ByteArrayInputStream(svgContents));
+			StreamingShapeReader shapeReader = new StreamingShapeReader(reader);
+			shapeReader.readDocument(svgContents.length, subMonitor);
+			return ShapeExtractor.removeDuplicates(shapeReader.shapeList);
+		} catch (XMLStreamException e) {
+			return null;
+		} catch (UnsupportedFeatureException e) {
+			return null;
+		} finally {
+			if (reader != null) {
+				try {
+					reader.close();
+				} catch (XMLStreamException e) {
+					// nothing to do
+				}
+			}
+			subMonitor.done();
+		}
+	}
+
+	private static XMLInputFactory createInputFactory() {
+
+		XMLInputFactory factory = XMLInputFactory.newInstance();
+		factory.setProperty(XMLInputFactory.IS_NAMESPACE_AWARE, Boolean.TRUE);
+		factory.setProperty(XMLInputFactory.IS_COALESCING, Boolean.FALSE);
+		factory.setProperty(XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES, Boolean.FALSE);
+		factory.setXMLResolver(new XMLResolver() {
+
+			@Override
+			public Object resolveEntity(String publicID, String systemID, String baseURI, String namespace) {
+				return new ByteArrayInputStream(new byte[0]);
+			}
+		});
+		return factory;
+	}
+
+	private void readDocument(int length, SubMonitor monitor)
+			throws XMLStreamException, UnsupportedFeatureException, InterruptedException {
+
+		int reportedProgress = 0;
+		boolean rootElement = true;
+		int skippedDepth = 0;
+		while (reader.hasNext()) {
+			int event = reader.next();
+			if (event == XMLStreamConstants.PROCESSING_INSTRUCTION) {
+				if (XML_STYLESHEET_TARGET.equals(reader.getPITarget())) {
+					throw new UnsupportedFeatureException();
+				}
+			} else if (event == XMLStreamConstants.START_ELEMENT) {
+				if (monitor.isCanceled()) {
+					throw new InterruptedException();
+				}
+				int progress = (int) ((long) PROGRESS_RESOLUTION * reader.getLocation().getCharacterOffset() / length);
+				if (progress > reportedProgress) {
+					monitor.worked(progress - reportedProgress);
+					reportedProgress = progress;
+				}
+
+				if (skippedDepth > 0) {
+					++skippedDepth;
+				} else if (rootElement) {
+					readRootElement();
+					rootElement = false;
+				} else if (!readElement()) {
+					skippedDepth = 1;
+				}
+			} else if (event == XMLStreamConstants.END_ELEMENT) {
+				if (skippedDepth > 0) {
+					--skippedDepth;
+				} else {
+					stateStack.pop();
+				}
+			}
+		}
+	}
+
+	private void readRootElement() throws UnsupportedFeatureException {
+
+		if (!SVG_NAMESPACE_URI.equals(reader.getNamespaceURI()) || !"svg".equals(reader.getLocalName())) {
+			throw new UnsupportedFeatureException();
+		}
+
+		GraphicState state = new GraphicState();
+		state.transform = getViewingTransform();
+		applyPresentationAttributes(state);
+		if (!state.displayed) {
+			throw new UnsupportedFeatureException();
+		}
+		stateStack.push(state);
+	}
+
+	/**
+	 * Reads a child element and pushes its graphic state.
+	 * 
+	 * @return <code>false</code> if the element and its children are not
+	 *         rendered and have to be skipped.
+	 */
+	private boolean readElement() throws UnsupportedFeatureException {
+
+		if (!SVG_NAMESPACE_URI.equals(reader.getNamespaceURI())) {
+			// foreign elements, e.g. editor metadata, are not rendered
+			return false;
+		}
+
+		String name = reader.getLocalName();
+		if ("title".equals(name) || "desc".equals(name) || "metadata".equals(name)) {
+			return false;
+		}
+
+		GraphicState state = new GraphicState(stateStack.peek());
+		applyPresentationAttributes(state);
+		if (state.displayed) {
+			String transform = getAttribute("transform");
+			if (transform != null) {
+				state.transform.concatenate(parseTransform(transform));
+			}
+		}
+
+		if ("g".equals(name)) {
+			if (!state.displayed) {
+				return false;
+			}
+			stateStack.push(state);
+			return true;
+		}
+
+		Shape shape;
+		if ("path".equals(name)) {
+			shape = createPath();
+		} else if ("rect".equals(name)) {
+			shape = createRectangle();
+		} else if ("circle".equals(name)) {
+			shape = createCircle();
+		} else if ("ellipse".equals(name)) {
+			shape = createEllipse();
+		} else if ("line".equals(name)) {
+			shape = createLine();
+		} else if ("polyline".equals(name)) {
+			shape = createPolyline(false);
+		} else if ("polygon".equals(name)) {
+			shape = createPolyline(true);
+		} else {
+			throw new UnsupportedFeatureException();
+		}
+
+		if ((shape != null) && state.displayed && state.visible && (state.filled || state.stroked)) {
+			shapeList.add(state.transform.createTransformedShape(shape));
+		}
+		if (!state.displayed) {
+			return false;
+		}
+		stateStack.push(state);
+		return true;
+	}
+
+	private AffineTransform getViewingTransform() throws UnsupportedFeatureException {
+
+		String viewBox = getAttribute("viewBox");
+		if (viewBox == null) {
+			return new AffineTransform();
+		}
+
+		String width = getAttribute("width");
+		String height = getAttribute("height");
+		if ((width == null) || (height == null)) {
+			// the viewport size depends on the user agent
+			throw new UnsupportedFeatureException();
+		}
+		double viewportWidth = parseLength(width);
+		double viewportHeight = parseLength(height);
+
+		NumberScanner scanner = new NumberScanner(viewBox);
+		double minX = scanner.nextNumber();
+		double minY = scanner.nextNumber();
+		double viewBoxWidth = scanner.nextNumber();
+		double viewBoxHeight = scanner.nextNumber();
+		scanner.expectEnd();
+		if ((viewBoxWidth <= 0.0d) || (viewBoxHeight <= 0.0d)) {
+			throw new UnsupportedFeatureException();
+		}
+
+		double scaleX = viewportWidth / viewBoxWidth;
+		double scaleY = viewportHeight / viewBoxHeight;
+		String[] preserveAspectRatio = getPreserveAspectRatio();
+		String align = preserveAspectRatio[0];
+		if ("none".equals(align)) {
+			AffineTransform transform = AffineTransform.getScaleInstance(scaleX, scaleY);
+			transform.translate(-minX, -minY);
+			return transform;
+		}
+		if (align.length() != 8) {
+			throw new UnsupportedFeatureException();
+		}
+
+		double scale = "slice".equals(preserveAspectRatio[1]) ? Math.max(scaleX, scaleY) : Math.min(scaleX, scaleY);
+		double translateX = getAlignmentOffset(align.substring(1, 4), viewportWidth - scale * viewBoxWidth);
+		double translateY = getAlignmentOffset(align.substring(5, 8), viewportHeight - scale * viewBoxHeight);
+		AffineTransform transform = AffineTransform.getTranslateInstance(translateX, translateY);
+		transform.scale(scale, scale);
+		transform.translate(-minX, -minY);
+		return transform;
+	}
+
+	private String[] getPreserveAspectRatio() throws UnsupportedFeatureException {
+
+		String value = getAttribute("preserveAspectRatio");
+		if (value == null) {
+			return new String[] { "xMidYMid", "meet" };
+		}
+		String[] tokens = value.trim().split("\\s+");
+		if ("defer".equals(tokens[0]) || (tokens.length > 2)) {
+			throw new UnsupportedFeatureException();
+		}
+		return new String[] { tokens[0], (tokens.length > 1) ? tokens[1] : "meet" };
+	}
+
+	private static double getAlignmentOffset(String alignment, double space) throws UnsupportedFeatureException {
+
+		if ("Min".equals(alignment)) {
+			return 0.0d;
+		} else if ("Mid".equals(alignment)) {
+			return space / 2.0d;
+		} else if ("Max".equals(alignment)) {
+			return space;
+		}
+		throw new UnsupportedFeatureException();
+	}
+
+	/**
+	 * Applies fill, stroke, visibility and display from presentation
+	 * attributes and the style attribute, and rejects properties which change
+	 * how shapes are painted.
+	 */
+	private void applyPresentationAttributes(GraphicState state) throws UnsupportedFeatureException {
+
+		for (int i = 0; i < reader.getAttributeCount(); ++i) {
+			String namespace = reader.getAttributeNamespace(i);
+			if ((namespace == null) || namespace.isEmpty()) {
+				applyProperty(state, reader.getAttributeLocalName(i), reader.getAttributeValue(i));
+			}
+		}
+
+		// style declarations take precedence over presentation attributes
+		String style = getAttribute("style");
+		if (style != null) {
+			for (String declaration : style.split(";")) {
+				int i = declaration.indexOf(':');
+				if (i >= 0) {
+					applyProperty(state, declaration.substring(0, i).trim(), declaration.substring(i + 1));
+				} else if (!declaration.trim().isEmpty()) {
+					throw new UnsupportedFeatureException();
+				}
+			}
+		}
+	}
+
+	private static void applyProperty(GraphicState state, String name, String rawValue)
+			throws UnsupportedFeatureException {
+
+		String value = rawValue.trim();
+		if (value.endsWith("!important")) {
+			value = value.substring(0, value.length() - "!important".length()).trim();
+		}
+		if (value.equals("inherit")) {
+			return;
+		}
+		if ("fill".equals(name)) {
+			state.filled = isPaint(value);
+		} else if ("stroke".equals(name)) {
+			state.stroked = isPaint(value);
+		} else if ("visibility".equals(name)) {
+			state.visible = "visible".equals(value);
+		} else if ("display".equals(name)) {
+			state.displayed = !"none".equals(value);
+		} else if ("clip-path".equals(name) || "mask".equals(name) || "filter".equals(name)
+				|| "marker-start".equals(name) || "marker-mid".equals(name) || "marker-end".equals(name)
+				|| "marker".equals(name)) {
+			if (!"none".equals(value)) {
+				throw new UnsupportedFeatureException();
+			}
+		}
+	}
+
+	private static boolean isPaint(String value) throws UnsupportedFeatureException {
+
+		if (value.startsWith("url(")) {
+			// paint servers are defined elsewhere in the document
+			throw new UnsupportedFeatureException();
+		}
+		return !"none".equals(value);
+	}
+
+	private String getAttribute(String name) {
+		return reader.getAttributeValue(null, name);
+	}
+
+	private double getLength(String name, double defaultValue) throws UnsupportedFeatureException {
+
+		String value = getAttribute(name);
+		if (value == null) {
+			return defaultValue;
+		}
+		return parseLength(value);
+	}
+
+	private static double parseLength(String value) throws UnsupportedFeatureException {
+
+		String length = value.trim();
+		int end = length.length();
+		while ((end > 0) && Character.isLetter(length.charAt(end - 1))) {
+			--end;
+		}
+		double factor = getUnitFactor(length.substring(end));
+		NumberScanner scanner = new NumberScanner(length.substring(0, end));
+		double number = scanner.nextNumber();
+		scanner.expectEnd();
+		return number * factor;
+	}
+
+	private static double getUnitFactor(String unit) throws UnsupportedFeatureException {
+
+		if (unit.isEmpty() || "px".equals(unit)) {
+			return 1.0d;
+		} else if ("in".equals(unit)) {
+			return PIXELS_PER_INCH;
+		} else if ("cm".equals(unit)) {
+			return PIXELS_PER_INCH / 2.54d;
+		} else if ("mm".equals(unit)) {
+			return PIXELS_PER_INCH / 25.4d;
+		} else if ("pt".equals(unit)) {
+			return PIXELS_PER_INCH / 72.0d;
+		} else if ("pc".equals(unit)) {
+			return PIXELS_PER_INCH / 6.0d;
+		}
+		// relative units depend on fonts and viewports
+		throw new UnsupportedFeatureException();
+	}
+
+	private Shape createRectangle() throws UnsupportedFeatureException {
+
+		double x = getLength("x", 0.0d);
+		double y = getLength("y", 0.0d);
+		double width = getLength("width", 0.0d);
+		double height = getLength("height", 0.0d);
+		double rx = getLength("rx", -1.0d);
+		double ry = getLength("ry", -1.0d);
+		if ((width < 0.0d) || (height < 0.0d)) {
+			throw new UnsupportedFeatureException();
+		}
+		if ((width == 0.0d) || (height == 0.0d)) {
+			return null;
+		}
+
+		if (rx < 0.0d) {
+			rx = Math.max(ry, 0.0d);
+		}
+		if (ry < 0.0d) {
+			ry = rx;
+		}
+		rx = Math.min(rx, width / 2.0d);
+		ry = Math.min(ry, height / 2.0d);
+		if ((rx == 0.0d) || (ry == 0.0d)) {
+			return new Rectangle2D.Double(x, y, width, height);
+		}
+		return new RoundRectangle2D.Double(x, y, width, height, 2.0d * rx, 2.0d * ry);
+	}
+
+	private Shape createCircle() throws UnsupportedFeatureException {
+
+		double cx = getLength("cx", 0.0d);
+		double cy = getLength("cy", 0.0d);
+		double r = getLength("r", 0.0d);
+		if (r < 0.0d) {
+			throw new UnsupportedFeatureException();
+		}
+		if (r == 0.0d) {
+			return null;
+		}
+		return new Ellipse2D.Double(cx - r, cy - r, 2.0d * r, 2.0d * r);
+	}
+
+	private Shape createEllipse() throws UnsupportedFeatureException {
+
+		double cx = getLength("cx", 0.0d);
+		double cy = getLength("cy", 0.0d);
+		double rx = getLength("rx", 0.0d);
+		double ry = getLength("ry", 0.0d);
+		if ((rx < 0.0d) || (ry < 0.0d)) {
+			throw new UnsupportedFeatureException();
+		}
+		if ((rx == 0.0d) || (ry == 0.0d)) {
+			return null;
+		}
+		return new Ellipse2D.Double(cx - rx, cy - ry, 2.0d * rx, 2.0d * ry);
+	}
+
+	private Shape createLine() throws UnsupportedFeatureException {
+
+		return new Line2D.Double(getLength("x1", 0.0d), getLength("y1", 0.0d), getLength("x2", 0.0d),
+				getLength("y2", 0.0d));
+	}
+
+	private Shape createPolyline(boolean closed) throws UnsupportedFeatureException {
+
+		String points = getAttribute("points");
+		if (points == null) {
+			return null;
+		}
+
+		NumberScanner scanner = new NumberScanner(points);
+		if (!scanner.hasNumber()) {
+			return null;
+		}
+		Path2D path = new Path2D.Double();
+		path.moveTo(scanner.nextNumber(), scanner.nextNumber());
+		while (scanner.hasNumber()) {
+			path.lineTo(scanner.nextNumber(), scanner.nextNumber());
+		}
+		scanner.expectEnd();
+		if (closed) {
+			path.closePath();
+		}
+		return path;
+	}
+
+	private Shape createPath() throws UnsupportedFeatureException {
+
+		String data = getAttribute("d");
+		if ((data == null) || data.trim().isEmpty()) {
+			return null;
+		}
+		return new PathDataParser(data).parse();
+	}
+
+	private static AffineTransform parseTransform(String value) throws UnsupportedFeatureException {
+
+		AffineTransform transform = new AffineTransform();
+		NumberScanner scanner = new NumberScanner(value);
+		scanner.skipSeparators();
+		while (!scanner.isAtEnd()) {
+			String name = scanner.nextName();
+			scanner.expect('(');
+			double[] arguments = new double[6];
+			int count = 0;
+			while (scanner.hasNumber() && (count < arguments.length)) {
+				arguments[count++] = scanner.nextNumber();
+			}
+			scanner.expect(')');
+
+			if ("matrix".equals(name) && (count == 6)) {
+				transform.concatenate(new AffineTransform(arguments));
+			} else if ("translate".equals(name) && ((count == 1) || (count == 2))) {
+				transform.translate(arguments[0], arguments[1]);
+			} else if ("scale".equals(name) && ((count == 1) || (count == 2))) {
+				transform.scale(arguments[0], (count == 1) ? arguments[0] : arguments[1]);
+			} else if ("rotate".equals(name) && (count == 1)) {
+				transform.rotate(Math.toRadians(arguments[0]));
+			} else if ("rotate".equals(name) && (count == 3)) {
+				transform.rotate(Math.toRadians(arguments[0]), arguments[1], arguments[2]);
+			} else if ("skewX".equals(name) && (count == 1)) {
+				transform.shear(Math.tan(Math.toRadians(arguments[0])), 0.0d);
+			} else if ("skewY".equals(name) && (count == 1)) {
+				transform.shear(0.0d, Math.tan(Math.toRadians(arguments[0])));
+			} else {
+				throw new UnsupportedFeatureException();
+			}
+			scanner.skipSeparators();
+		}
+		return transform;
+	}
+
+	/**
+	 * Inherited painting state of an element.
+	 */
+	private static final class GraphicState {
+
+		AffineTransform transform;
+		boolean filled;
+		boolean stroked;
+		boolean visible;
+		boolean displayed;
+
+		GraphicState() {
+
+			this.transform = new AffineTransform();
+			this.filled = true;
+			this.stroked = false;
+			this.visible = true;
+			this.displayed = true;
+		}
+
+		GraphicState(GraphicState parent) {
+
+			this.transform = new AffineTransform(parent.transform);
+			this.filled = parent.filled;
+			this.stroked = parent.stroked;
+			this.visible = parent.visible;
+			// display is not inherited, but hidden parents are skipped
+			this.displayed = true;
+		}
+	}
+
+	/**
+	 * Converts SVG path data into a path, including the conversion of
+	 * elliptical arcs into curves.
+	 */
+	private static final class PathDataParser {
+
+		private final NumberScanner scanner;
+		private final Path2D path;
+
+		private double currentX;
+		private double currentY;
+		private double startX;
+		private double startY;
+		private double controlX;
+		private double controlY;
+		private char previousCommand;
+		private boolean closed;
+
+		PathDataParser(String data) {
+
+			this.scanner = new NumberScanner(data);
+			this.path = new Path2D.Double();
+		}
+
+		Shape parse() throws UnsupportedFeatureException {
+
+			scanner.skipSeparators();
+			char command = scanner.nextCommand();
+			if ((command != 'M') && (command != 'm')) {
+				throw new UnsupportedFeatureException();
+			}
+			while (true) {
+				readSegment(command);
+				// further coordinate pairs of a move are implicit lines
+				if (command == 'M') {
+					command = 'L';
+				} else if (command == 'm') {
+					command = 'l';
+				}
+				if ((command == 'Z') || (command == 'z')) {
+					if (scanner.hasNumber()) {
+						throw new UnsupportedFeatureException();
+					}
+				} else {
+					while (scanner.hasNumber()) {
+						readSegment(command);
+					}
+				}
+				scanner.skipSeparators();
+				if (scanner.isAtEnd()) {
+					return path;
+				}
+				command = scanner.nextCommand();
+			}
+		}
+
+		private void readSegment(char command) throws UnsupportedFeatureException {
+
+			boolean relative = Character.isLowerCase(command);
+			double baseX = relative ? currentX : 0.0d;
+			double baseY = relative ? currentY : 0.0d;
+			char type = Character.toUpperCase(command);
+			if ((type != 'M') && (type != 'Z') && closed) {
+				// drawing after a close starts a new subpath at its start
+				path.moveTo(currentX, currentY);
+			}
+			closed = false;
+
+			switch (type) {
+			case 'M':
+				currentX = baseX + scanner.nextNumber();
+				currentY = baseY + scanner.nextNumber();
+				startX = currentX;
+				startY = currentY;
+				path.moveTo(currentX, currentY);
+				break;
+			case 'L':
+				currentX = baseX + scanner.nextNumber();
+				currentY = baseY + scanner.nextNumber();
+				path.lineTo(currentX, currentY);
+				break;
+			case 'H':
+				currentX = baseX + scanner.nextNumber();
+				path.lineTo(currentX, currentY);
+				break;
+			case 'V':
+				currentY = baseY + scanner.nextNumber();
+				path.lineTo(currentX, currentY);
+				break;
+			case 'C': {
+				double x1 = baseX + scanner.nextNumber();
+				double y1 = baseY + scanner.nextNumber();
+				controlX = baseX + scanner.nextNumber();
+				controlY = baseY + scanner.nextNumber();
+				currentX = baseX + scanner.nextNumber();
+				currentY = baseY + scanner.nextNumber();
+				path.curveTo(x1, y1, controlX, controlY, currentX, currentY);
+				break;
+			}
+			case 'S': {
+				double x1 = currentX;
+				double y1 = currentY;
+				if ((previousCommand == 'C') || (previousCommand == 'S')) {
+					x1 = 2.0d * currentX - controlX;
+					y1 = 2.0d * currentY - controlY;
+				}
+				controlX = baseX + scanner.nextNumber();
+				controlY = baseY + scanner.nextNumber();
+				currentX = baseX + scanner.nextNumber();
+				currentY = baseY + scanner.nextNumber();
+				path.curveTo(x1, y1, controlX, controlY, currentX, currentY);
+				break;
+			}
+			case 'Q':
+				controlX = baseX + scanner.nextNumber();
+				controlY = baseY + scanner.nextNumber();
+				currentX = baseX + scanner.nextNumber();
+				currentY = baseY + scanner.nextNumber();
+				path.quadTo(controlX, controlY, currentX, currentY);
+				break;
+			case 'T':
+				if ((previousCommand == 'Q') || (previousCommand == 'T')) {
+					controlX = 2.0d * currentX - controlX;
+					controlY = 2.0d * currentY - controlY;
+				} else {
+					controlX = currentX;
+					controlY = currentY;
+				}
+				currentX = baseX + scanner.nextNumber();
+				currentY = baseY + scanner.nextNumber();
+				path.quadTo(controlX, controlY, currentX, currentY);
+				break;
+			case 'A': {
+				double rx = Math.abs(scanner.nextNumber());
+				double ry = Math.abs(scanner.nextNumber());
+				double angle = scanner.nextNumber();
+				boolean largeArc = scanner.nextFlag();
+				boolean sweep = scanner.nextFlag();
+				double x = baseX + scanner.nextNumber();
+				double y = baseY + scanner.nextNumber();
+				appendArc(rx, ry, angle, largeArc, sweep, x, y);
+				currentX = x;
+				currentY = y;
+				break;
+			}
+			case 'Z':
+				path.closePath();
+				currentX = startX;
+				currentY = startY;
+				closed = true;
+				break;
+			default:
+				throw new UnsupportedFeatureException();
+			}
+			previousCommand = type;
+		}
+
+		/**
+		 * Appends an elliptical arc from the current point, following the
+		 * endpoint to center parameterization of the SVG specification.
+		 */
+		private void appendArc(double radiusX, double radiusY, double angle, boolean largeArc, boolean sweep,
+				double x, double y) {
+
+			if ((currentX == x) && (currentY == y)) {
+				return;
+			}
+			if ((radiusX == 0.0d) || (radiusY == 0.0d)) {
+				path.lineTo(x, y);
+				return;
+			}
+
+			double phi = Math.toRadians(angle % 360.0d);
+			double cosPhi = Math.cos(phi);
+			double sinPhi = Math.sin(phi);
+			double dx2 = (currentX - x) / 2.0d;
+			double dy2 = (currentY - y) / 2.0d;
+			double x1 = cosPhi * dx2 + sinPhi * dy2;
+			double y1 = -sinPhi * dx2 + cosPhi * dy2;
+
+			// scale up radii which are too small to reach the end point
+			double rx = radiusX;
+			double ry = radiusY;
+			double lambda = (x1 * x1) / (rx * rx) + (y1 * y1) / (ry * ry);
+			if (lambda > 1.0d) {
+				rx *= Math.sqrt(lambda);
+				ry *= Math.sqrt(lambda);
+			}
+
+			double numerator = rx * rx * ry * ry - rx * rx * y1 * y1 - ry * ry * x1 * x1;
+			double denominator = rx * rx * y1 * y1 + ry * ry * x1 * x1;
+			double coefficient = Math.sqrt(Math.max(0.0d, numerator / denominator));
+			if (largeArc == sweep) {
+				coefficient = -coefficient;
+			}
+			double cx1 = coefficient * rx * y1 / ry;
+			double cy1 = -coefficient * ry * x1 / rx;
+			double cx = cosPhi * cx1 - sinPhi * cy1 + (currentX + x) / 2.0d;
+			double cy = sinPhi * cx1 + cosPhi * cy1 + (currentY + y) / 2.0d;
+
+			double startAngle = Math.toDegrees(Math.atan2((y1 - cy1) / ry, (x1 - cx1) / rx));
+			double endAngle = Math.toDegrees(Math.atan2((-y1 - cy1) / ry, (-x1 - cx1) / rx));
+			double extent = endAngle - startAngle;
+			if (sweep && (extent < 0.0d)) {
+				extent += 360.0d;
+			} else if (!sweep && (extent > 0.0d)) {
+				extent -= 360.0d;
+			}
+
+			// Arc2D measures angles counterclockwise with the y axis pointing
+			// up, so angles are negated
+			Arc2D arc = new Arc2D.Double(cx - rx, cy - ry, 2.0d * rx, 2.0d * ry, -startAngle, -extent, Arc2D.OPEN);
+			AffineTransform rotation = AffineTransform.getRotateInstance(phi, cx, cy);
+			path.append(rotation.createTransformedShape(arc), true);
+
+			// end exactly at the requested point
+			Point2D end = path.getCurrentPoint();
+			if ((end != null) && ((end.getX() != x) || (end.getY() != y))) {
+				path.lineTo(x, y);
+			}
+		}
+	}
+
+	/**
+	 * Scans numbers, flags, names and commands in SVG attribute values which
+	 * are separated by white space and commas.
+	 */
+	private static final class NumberScanner {
+
+		private final String text;
+		private int position;
+
+		NumberScanner(String text) {
+			this.text = text;
+		}
+
+		boolean isAtEnd() {
+			return position >= text.length();
+		}
+
+		void skipSeparators() {
+
+			while (!isAtEnd()) {
+				char c = text.charAt(position);
+				if ((c != ',') && !isWhitespace(c)) {
+					return;
+				}
+				++position;
+			}
+		}
+
+		private void skipWhitespace() {
+
+			while (!isAtEnd() && isWhitespace(text.charAt(position))) {
+				++position;
+			}
+		}
+
+		boolean hasNumber() {
+
+			skipSeparators();
+			if (isAtEnd()) {
+				return false;
+			}
+			char c = text.charAt(position);
+			return ((c >= '0') && (c <= '9')) || (c == '-') || (c == '+') || (c == '.');
+		}
+
+		double nextNumber() throws UnsupportedFeatureException {
+
+			skipSeparators();
+			int start = position;
+			if (!isAtEnd() && ((text.charAt(position) == '-') || (text.charAt(position) == '+'))) {
+				++position;
+			}
+			int digits = skipDigits();
+			if (!isAtEnd() && (text.charAt(position) == '.')) {
+				++position;
+				digits += skipDigits();
+			}
+			if (digits == 0) {
+				throw new UnsupportedFeatureException();
+			}
+			if (!isAtEnd() && ((text.charAt(position) == 'e') || (text.charAt(position) == 'E'))) {
+				int exponentStart = position;
+				++position;
+				if (!isAtEnd() && ((text.charAt(position) == '-') || (text.charAt(position) == '+'))) {
+					++position;
+				}
+				if (skipDigits() == 0) {
+					// not an exponent, e.g. the unit "em"
+					position = exponentStart;
+				}
+			}
+			return Double.parseDouble(text.substring(start, position));
+		}
+
+		private int skipDigits() {
+
+			int start = position;
+			while (!isAtEnd() && (text.charAt(position) >= '0') && (text.charAt(position) <= '9')) {
+				++position;
+			}
+			return position - start;
+		}
+
+		boolean nextFlag() throws UnsupportedFeatureException {
+
+			skipSeparators();
+			if (!isAtEnd()) {
+				char c = text.charAt(position++);
+				if (c == '0') {
+					return false;
+				} else if (c == '1') {
+					return true;
+				}
+			}
+			throw new UnsupportedFeatureException();
+		}
+
+		char nextCommand() throws UnsupportedFeatureException {
+
+			skipSeparators();
+			if (isAtEnd() || !Character.isLetter(text.charAt(position))) {
+				throw new UnsupportedFeatureException();
+			}
+			return text.charAt(position++);
+		}
+
+		String nextName() throws UnsupportedFeatureException {
+
+			skipSeparators();
+			int start = position;
+			while (!isAtEnd() && Character.isLetter(text.charAt(position))) {
+				++position;
+			}
+			if (start == position) {
+				throw new UnsupportedFeatureException();
+			}
+			return text.substring(start, position);
+		}
+
+		void expect(char c) throws UnsupportedFeatureException {
+
+			skipWhitespace();
+			if (isAtEnd() || (text.charAt(position) != c)) {
+				throw new UnsupportedFeatureException();
+			}
+			++position;
+		}
+
+		void expectEnd() throws UnsupportedFeatureException {
+
+			skipSeparators();
+			if (!isAtEnd()) {
+				throw new UnsupportedFeatureException();
+			}
+		}
+
+		private static boolean isWhitespace(char c) {
+			return (c == ' ') || (c == '\t') || (c == '\n') || (c == '\r');
+		}
+	}
+
+	/**
+	 * Signals a document feature which cannot be handled without the full SVG
+	 * implementation.
+	 */
+	private static final class UnsupportedFeatureException extends Exception {
+
+		private static final long serialVersionUID = 1L;
+	}
+}
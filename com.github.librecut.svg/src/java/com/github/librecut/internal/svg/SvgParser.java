@@ -25,15 +25,22 @@ import org.apache.batik.bridge.BridgeContext;
 import org.apache.batik.bridge.BridgeException;
 import org.apache.batik.bridge.DocumentLoader;
 import org.apache.batik.bridge.GVTBuilder;
+import org.apache.batik.bridge.InterruptedBridgeException;
 import org.apache.batik.bridge.UserAgent;
 import org.apache.batik.bridge.UserAgentAdapter;
 import org.apache.batik.dom.svg.SAXSVGDocumentFactory;
+import org.apache.batik.gvt.CompositeGraphicsNode;
 import org.apache.batik.gvt.GraphicsNode;
 import org.apache.batik.util.XMLResourceDescriptor;
+import org.eclipse.core.runtime.IProgressMonitor;
+import org.eclipse.core.runtime.SubMonitor;
+import org.w3c.dom.Element;
 import org.w3c.dom.svg.SVGDocument;
 
 public final class SvgParser {
 
+	private static final String ALL_ELEMENTS = "*";
+
 	private SvgParser() {
 		super();
 	}
@@ -46,18 +53,41 @@ public final class SvgParser {
 		return document;
 	}
 
-	public static GraphicsNode buildGvtTree(SVGDocument document) throws IOException {
+	/**
+	 * Builds the GVT tree of the given document. Progress is reported per
+	 * element, the build stops as soon as the monitor is canceled.
+	 */
+	public static GraphicsNode buildGvtTree(SVGDocument document, IProgressMonitor monitor)
+			throws IOException, InterruptedException {
+
+		final SubMonitor subMonitor = SubMonitor.convert(monitor,
+				document.getElementsByTagName(ALL_ELEMENTS).getLength());
 
 		UserAgent userAgent = new UserAgentAdapter();
 		DocumentLoader loader = new DocumentLoader(userAgent);
 		BridgeContext context = new BridgeContext(userAgent, loader);
 		context.setDynamicState(BridgeContext.STATIC);
-		GVTBuilder builder = new GVTBuilder();
+		GVTBuilder builder = new GVTBuilder() {
+
+			@Override
+			protected void buildGraphicsNode(BridgeContext ctx, Element e, CompositeGraphicsNode parentNode) {
+
+				if (subMonitor.isCanceled()) {
+					throw new InterruptedBridgeException();
+				}
+				subMonitor.worked(1);
+				super.buildGraphicsNode(ctx, e, parentNode);
+			}
+		};
 		try {
 			GraphicsNode rootNode = builder.build(context, document);
 			return rootNode;
+		} catch (InterruptedBridgeException e) {
+			throw new InterruptedException();
 		} catch (BridgeException e) {
 			throw new IOException("SVG document parsing error", e);
+		} finally {
+			monitor.done();
 		}
 	}
 }
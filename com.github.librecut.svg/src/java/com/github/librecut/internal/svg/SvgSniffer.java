@@ -0,0 +1,86 @@
+/**
+ * Copyright (C) 2016 Gerhard Mitzner.
+ * 
+ * This file is part of LibreCut.
+ * 
+ * LibreCut is free software: you can redistribute it and/or modify it under the
+ * terms of the GNU Lesser General Public License as published by the Free
+ * Software Foundation, either version 3 of the License, or (at your option) any
+ * later version.
+ * 
+ * LibreCut is distributed in the hope that it will be useful, but WITHOUT ANY
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR
+ * A PARTICULAR PURPOSE. See the GNU Lesser General Public License for more
+ * details.
+ * 
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with LibreCut. If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.github.librecut.internal.svg;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLResolver;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+
+/**
+ * Recognizes SVG documents by their root element without parsing the whole
+ * document.
+ */
+public final class SvgSniffer {
+
+	private static final String SVG_ELEMENT_NAME = "svg";
+
+	private SvgSniffer() {
+		super();
+	}
+
+	/**
+	 * Checks whether the given document prefix starts an XML document with an
+	 * <code>svg</code> root element. External DTDs and entities are never
+	 * loaded.
+	 * 
+	 * @param prefix
+	 *            the first bytes of the document, which must include the start
+	 *            tag of the root element.
+	 * @return <code>true</code> if the document looks like an SVG document.
+	 */
+	public static boolean isSvgDocument(InputStream prefix) {
+
+		XMLInputFactory factory = XMLInputFactory.newInstance();
+		factory.setProperty(XMLInputFactory.IS_NAMESPACE_AWARE, Boolean.TRUE);
+		factory.setProperty(XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES, Boolean.FALSE);
+		factory.setXMLResolver(new XMLResolver() {
+
+			@Override
+			public Object resolveEntity(String publicID, String systemID, String baseURI, String namespace) {
+				return new ByteArrayInputStream(new byte[0]);
+			}
+		});
+
+		XMLStreamReader reader = null;
+		try {
+			reader = factory.createXMLStreamReader(prefix);
+			while (reader.hasNext()) {
+				if (reader.next() == XMLStreamConstants.START_ELEMENT) {
+					return SVG_ELEMENT_NAME.equals(reader.getLocalName());
+				}
+			}
+			return false;
+		} catch (XMLStreamException e) {
+			return false;
+		} finally {
+			if (reader != null) {
+				try {
+					reader.close();
+				} catch (XMLStreamException e) {
+					// nothing to do
+				}
+			}
+		}
+	}
+}
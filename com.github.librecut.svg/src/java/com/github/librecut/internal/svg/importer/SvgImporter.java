@@ -25,108 +25,111 @@ import java.io.IOException;
 import java.io.InputStream;
 import java.util.ArrayList;
 import java.util.List;
-import java.util.concurrent.atomic.AtomicBoolean;
 
 import org.apache.batik.gvt.GraphicsNode;
 import org.eclipse.core.runtime.IProgressMonitor;
 import org.eclipse.core.runtime.IStatus;
 import org.eclipse.core.runtime.Status;
+import org.eclipse.core.runtime.SubMonitor;
 import org.w3c.dom.svg.SVGDocument;
 
 import com.github.librecut.api.design.model.IDesign;
 import com.github.librecut.api.design.spi.IDesignImporter;
 import com.github.librecut.internal.svg.Constants;
 import com.github.librecut.internal.svg.Design;
-import com.github.librecut.internal.svg.IShapeCollector;
-import com.github.librecut.internal.svg.ShapeExtractingGraphics2D;
 import com.github.librecut.internal.svg.ShapeExtractor;
+import com.github.librecut.internal.svg.StreamingShapeReader;
 import com.github.librecut.internal.svg.SvgParser;
+import com.github.librecut.internal.svg.SvgSniffer;
 
 public class SvgImporter implements IDesignImporter {
 
+	private static final int READ_PROGRESS_RESOLUTION = 1000;
+
 	@Override
 	public boolean isSupported(InputStream contents, String fileExtension, IProgressMonitor monitor)
 			throws IOException, InterruptedException {
 
-		byte[] svgContents = readAllBytes(contents, monitor);
-
-		GraphicsNode rootNode;
-		try {
-			handleProgressMonitorCancellation(monitor);
-
-			SVGDocument document = SvgParser.loadDocument(new ByteArrayInputStream(svgContents));
-
-			handleProgressMonitorCancellation(monitor);
-
-			rootNode = SvgParser.buildGvtTree(document);
-		} catch (IOException e) {
-			return false;
-		}
-
-		handleProgressMonitorCancellation(monitor);
-
-		final AtomicBoolean readable = new AtomicBoolean(true);
-		ShapeExtractingGraphics2D graphics = new ShapeExtractingGraphics2D(new IShapeCollector() {
-
-			@Override
-			public void handleException(Exception exception) {
-				readable.set(false);
-			}
-
-			@Override
-			public void addShape(Shape shape) {
-				// nothing to do
-			}
-		});
-		rootNode.primitivePaint(graphics);
-
-		return readable.get();
+		byte[] prefix = readBytes(contents, MAX_PROBE_LENGTH, monitor);
+		return SvgSniffer.isSvgDocument(new ByteArrayInputStream(prefix));
 	}
 
 	@Override
 	public IImportResult importDesign(InputStream contents, String fileExtension, IProgressMonitor monitor)
 			throws IOException, InterruptedException {
 
-		byte[] svgContents = readAllBytes(contents, monitor);
-
-		GraphicsNode rootNode;
+		SubMonitor subMonitor = SubMonitor.convert(monitor, 100);
 		try {
-			handleProgressMonitorCancellation(monitor);
-
-			SVGDocument document = SvgParser.loadDocument(new ByteArrayInputStream(svgContents));
-
-			handleProgressMonitorCancellation(monitor);
-
-			rootNode = SvgParser.buildGvtTree(document);
-		} catch (IOException e) {
-			return createFailedImportResult(new Status(IStatus.ERROR, Constants.PLUGIN_ID, e.getMessage(), e));
-		}
+			subMonitor.subTask("Reading SVG document");
+			byte[] svgContents = readBytes(contents, Integer.MAX_VALUE, subMonitor.newChild(20));
+
+			handleProgressMonitorCancellation(subMonitor);
+
+			// plain documents are read directly from the XML stream, all
+			// others fall back to the full SVG implementation
+			SubMonitor shapeMonitor = subMonitor.newChild(70).setWorkRemaining(100);
+			subMonitor.subTask("Reading shapes");
+			List<Shape> shapeList = StreamingShapeReader.readShapes(svgContents, shapeMonitor.newChild(25));
+			if (shapeList == null) {
+				GraphicsNode rootNode;
+				try {
+					handleProgressMonitorCancellation(subMonitor);
+
+					subMonitor.subTask("Parsing SVG document");
+					SVGDocument document = SvgParser.loadDocument(new ByteArrayInputStream(svgContents));
+					shapeMonitor.worked(10);
+
+					handleProgressMonitorCancellation(subMonitor);
+
+					subMonitor.subTask("Building graphics nodes");
+					rootNode = SvgParser.buildGvtTree(document, shapeMonitor.newChild(40));
+				} catch (IOException e) {
+					return createFailedImportResult(new Status(IStatus.ERROR, Constants.PLUGIN_ID, e.getMessage(), e));
+				}
+
+				handleProgressMonitorCancellation(subMonitor);
+
+				subMonitor.subTask("Extracting shapes");
+				shapeList = new ArrayList<Shape>();
+				IStatus status = ShapeExtractor.extractShapeList(rootNode, shapeList, shapeMonitor.newChild(25));
+				if (!status.isOK()) {
+					return createFailedImportResult(status);
+				}
+			}
+			shapeMonitor.done();
 
-		handleProgressMonitorCancellation(monitor);
+			handleProgressMonitorCancellation(subMonitor);
 
-		List<Shape> shapeList = new ArrayList<Shape>();
-		IStatus status = ShapeExtractor.extractShapeList(rootNode, shapeList);
-		if (!status.isOK()) {
-			return createFailedImportResult(status);
+			subMonitor.subTask("Flattening shapes");
+			Shape[] shapes = shapeList.toArray(new Shape[shapeList.size()]);
+			Design design = new Design(svgContents, shapes);
+			subMonitor.worked(10);
+			return createSuccessfulImportResult(design);
+		} finally {
+			monitor.done();
 		}
-
-		Shape[] shapes = shapeList.toArray(new Shape[shapeList.size()]);
-		Design design = new Design(svgContents, shapes);
-		return createSuccessfulImportResult(design);
 	}
 
-	private static byte[] readAllBytes(InputStream contents, IProgressMonitor monitor)
+	private static byte[] readBytes(InputStream contents, int maxLength, IProgressMonitor monitor)
 			throws IOException, InterruptedException {
 
+		// the length of the contents is unknown, so progress is reported
+		// asymptotically
+		SubMonitor subMonitor = SubMonitor.convert(monitor);
 		ByteArrayOutputStream os = new ByteArrayOutputStream();
 		byte[] buffer = new byte[8192];
-		int length = contents.read(buffer);
+		int length = contents.read(buffer, 0, Math.min(buffer.length, maxLength));
 		while (length != -1) {
 			os.write(buffer, 0, length);
 
 			handleProgressMonitorCancellation(monitor);
+			subMonitor.setWorkRemaining(READ_PROGRESS_RESOLUTION);
+			subMonitor.worked(1);
 
-			length = contents.read(buffer);
+			if (os.size() >= maxLength) {
+				break;
+			}
+			length = contents.read(buffer, 0, Math.min(buffer.length, maxLength - os.size()));
 		}
 		return os.toByteArray();
 	}